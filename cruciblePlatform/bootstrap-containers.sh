@@ -24,4 +24,12 @@ docker run -d \
 
 echo "Redis container started on port ${SPRING_REDIS_PORT:-6379}"
 
+# --- Launch RabbitMQ (judge queue) ---
+docker run -d \
+    --name crucible-rabbitmq \
+    -p ${CRUCIBLE_RABBITMQ_PORT:-5672}:5672 \
+    rabbitmq:4
+
+echo "RabbitMQ container started on port ${CRUCIBLE_RABBITMQ_PORT:-5672}"
+
 echo "All services are up!"
@@ -0,0 +1,103 @@
+-- Leaderboard benchmark: the set-based standings query (UserContestRepository.STANDINGS)
+-- against the per-participant queries ContestService used to issue, on a generated contest.
+--
+--   psql -h localhost -U crucible_user -d crucible -v participants=10000 -f scripts/leaderboard-benchmark.sql
+--
+-- Run against a migrated scratch database; the generated rows are deleted at the end. The old
+-- implementation is replayed inside one PL/pgSQL loop, so its timing leaves out the two network
+-- round trips per participant it paid in the application and is a lower bound.
+\set ON_ERROR_STOP on
+\if :{?participants}
+\else
+  \set participants 10000
+\endif
+\if :{?questions}
+\else
+  \set questions 8
+\endif
+\timing off
+
+SELECT setseed(0.42);
+
+INSERT INTO users (username, email, hashed_password, roles)
+SELECT 'leaderboard-bench-' || n, 'leaderboard-bench-' || n || '@example.com', '-', ARRAY['USER']
+FROM generate_series(1, :participants) AS n;
+
+INSERT INTO contests (name, start_time, end_time)
+VALUES ('leaderboard-bench', NOW() - INTERVAL '3 hours', NOW() + INTERVAL '1 hour');
+SELECT currval('contests_id_seq') AS contest_id \gset
+
+INSERT INTO questions (title, contest_id, points)
+SELECT 'leaderboard-bench-' || n, :contest_id, 100 * n FROM generate_series(1, :questions) AS n;
+
+INSERT INTO user_contests (user_id, contest_id)
+SELECT id, :contest_id FROM users WHERE username LIKE 'leaderboard-bench-%';
+
+-- Every participant tries each question with probability 0.6, up to three times; each try is
+-- accepted with probability 0.4
+INSERT INTO submissions (user_id, question_id, contest_id, code, language, status, created_at)
+SELECT uc.user_id, q.id, :contest_id, '-', 'python',
+       CASE WHEN random() < 0.4 THEN 'Accepted' ELSE 'Wrong Answer' END,
+       NOW() - INTERVAL '3 hours' + random() * INTERVAL '3 hours'
+FROM user_contests uc
+JOIN questions q ON q.contest_id = uc.contest_id
+CROSS JOIN generate_series(1, 3) AS try
+WHERE uc.contest_id = :contest_id AND random() < 0.6 / try;
+
+VACUUM ANALYZE users;
+VACUUM ANALYZE user_contests;
+VACUUM ANALYZE submissions;
+VACUUM ANALYZE questions;
+
+SELECT COUNT(*) AS participants FROM user_contests WHERE contest_id = :contest_id;
+SELECT COUNT(*) AS submissions FROM submissions WHERE contest_id = :contest_id;
+
+\echo '== Before: participants, questions, then submissions and user of every participant =='
+SELECT set_config('bench.contest_id', :'contest_id', false);
+DO $$
+DECLARE
+    contest BIGINT := current_setting('bench.contest_id')::BIGINT;
+    participant RECORD;
+    started TIMESTAMPTZ := clock_timestamp();
+    rows BIGINT := 0;
+BEGIN
+    PERFORM * FROM questions WHERE contest_id = contest;
+    FOR participant IN SELECT * FROM user_contests WHERE contest_id = contest LOOP
+        PERFORM * FROM submissions WHERE user_id = participant.user_id AND contest_id = contest;
+        PERFORM * FROM users WHERE id = participant.user_id;
+        rows := rows + 1;
+    END LOOP;
+    RAISE NOTICE '% participants, % queries, % ms', rows, 2 * rows + 2,
+        round(EXTRACT(EPOCH FROM clock_timestamp() - started) * 1000);
+END
+$$;
+
+\echo '== After: one query, top 50 =='
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+WITH solves AS (
+  SELECT s.user_id, s.question_id, MIN(s.created_at) AS solved_at
+  FROM submissions s WHERE s.contest_id = :contest_id AND s.status = 'Accepted'
+  GROUP BY s.user_id, s.question_id
+), totals AS (
+  SELECT solves.user_id, COUNT(*) AS solved_problems, SUM(COALESCE(q.points, 0)) AS total_score,
+    MAX(solves.solved_at) AS last_solved_at
+  FROM solves JOIN questions q ON q.id = solves.question_id GROUP BY solves.user_id
+), standings AS (
+  SELECT uc.user_id, u.username,
+    CAST(COALESCE(t.total_score, 0) AS INT) AS total_score,
+    CAST(COALESCE(t.solved_problems, 0) AS INT) AS solved_problems,
+    CAST(RANK() OVER (ORDER BY COALESCE(t.total_score, 0) DESC, COALESCE(t.solved_problems, 0) DESC,
+      GREATEST(FLOOR(EXTRACT(EPOCH FROM t.last_solved_at - c.start_time)), 0) ASC NULLS LAST) AS INT) AS rank
+  FROM user_contests uc
+  JOIN users u ON u.id = uc.user_id
+  JOIN contests c ON c.id = uc.contest_id
+  LEFT JOIN totals t ON t.user_id = uc.user_id
+  WHERE uc.contest_id = :contest_id
+)
+SELECT * FROM standings ORDER BY rank, user_id LIMIT 50 OFFSET 0;
+
+\echo '== Cleanup =='
+DELETE FROM submissions WHERE contest_id = :contest_id;
+DELETE FROM user_contests WHERE contest_id = :contest_id;
+DELETE FROM contests WHERE id = :contest_id;
+DELETE FROM users WHERE username LIKE 'leaderboard-bench-%';
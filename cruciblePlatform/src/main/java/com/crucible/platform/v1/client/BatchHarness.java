@@ -0,0 +1,198 @@
+package com.crucible.platform.v1.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import com.crucible.platform.v1.dto.submission.PistonExecuteRequest;
+import com.crucible.platform.v1.dto.submission.PistonExecuteResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Turns one execution request plus N inputs into a single sandbox execution.
+ *
+ * The harness in {@code judge/batch_harness.c} is prepended to the source, so the code is
+ * compiled once and each input runs in a forked child of the compiled program. Inputs are
+ * framed on stdin and the per-input stdout, exit code, signal, wall time, CPU time and peak
+ * RSS come back framed on stdout, separated by a random boundary the submission can't guess.
+ *
+ * The whole execution must fit in the executor's run timeout cap
+ * ({@code crucible.judge.batch.max-run-timeout-ms}). Its run timeout is clamped to the cap, so
+ * a slow batch can be killed before it reaches every input; those inputs come back
+ * unreported rather than with a verdict they never earned.
+ */
+@Component
+public class BatchHarness {
+
+    private static final Set<String> SUPPORTED_LANGUAGES = Set.of("c", "cpp");
+
+    // Allowance for compiling and starting the batch on top of the inputs' own timeouts
+    private static final int BATCH_MARGIN_MS = 1000;
+
+    private static final Map<Integer, String> SIGNAL_NAMES = Map.of(
+        6, "SIGABRT",
+        8, "SIGFPE",
+        9, "SIGKILL",
+        11, "SIGSEGV",
+        14, "SIGALRM",
+        24, "SIGXCPU",
+        25, "SIGXFSZ"
+    );
+
+    private final String harnessSource;
+    private final int maxRunTimeoutMs;
+
+    public BatchHarness(@Value("${crucible.judge.batch.max-run-timeout-ms}") int maxRunTimeoutMs) {
+        this.maxRunTimeoutMs = maxRunTimeoutMs;
+        try {
+            this.harnessSource = StreamUtils.copyToString(
+                new ClassPathResource("judge/batch_harness.c").getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load batch harness", e);
+        }
+    }
+
+    /**
+     * Whether inputs of this request can be batched: its language is supported, and an input
+     * that runs to its timeout still fits in the executor's cap
+     */
+    public boolean supports(PistonExecuteRequest request) {
+        return SUPPORTED_LANGUAGES.contains(request.getLanguage())
+            && request.getRun_timeout() + BATCH_MARGIN_MS <= maxRunTimeoutMs;
+    }
+
+    /**
+     * Wrap the request so that a single execution runs every input.
+     * The request's run timeout is applied to each input separately. With {@code failFast}
+     * the batch stops after the first input that exits non-zero or is killed.
+     */
+    public Batch prepare(PistonExecuteRequest request, List<String> inputs, boolean failFast) {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        int perInputTimeoutMs = request.getRun_timeout();
+
+        StringBuilder stdin = new StringBuilder()
+            .append("CRUCIBLE-BATCH ").append(boundary).append(' ')
+            .append(inputs.size()).append(' ').append(perInputTimeoutMs).append(' ')
+            .append(failFast ? 1 : 0).append('\n');
+        for (String input : inputs) {
+            String value = input != null ? input : "";
+            stdin.append(value.getBytes(StandardCharsets.UTF_8).length).append('\n').append(value);
+        }
+
+        List<PistonExecuteRequest.PistonFile> files = new ArrayList<>();
+        for (PistonExecuteRequest.PistonFile file : request.getFiles()) {
+            files.add(new PistonExecuteRequest.PistonFile(file.getName(), file.getContent(), file.getEncoding()));
+        }
+        // Only the entry file gets the harness; #line keeps compiler errors pointing at the user's lines
+        PistonExecuteRequest.PistonFile entry = files.get(0);
+        entry.setContent(harnessSource + "\n#line 1 \"" + entry.getName() + "\"\n" + entry.getContent());
+
+        PistonExecuteRequest batchRequest = new PistonExecuteRequest(
+            request.getLanguage(),
+            request.getVersion(),
+            files,
+            stdin.toString(),
+            request.getArgs(),
+            request.getCompile_timeout(),
+            (int) Math.min((long) perInputTimeoutMs * inputs.size() + BATCH_MARGIN_MS, maxRunTimeoutMs),
+            request.getCompile_memory_limit(),
+            request.getRun_memory_limit()
+        );
+        return new Batch(batchRequest, boundary, inputs.size());
+    }
+
+    /**
+     * A prepared batch execution and the boundary needed to split its output
+     */
+    public static class Batch {
+
+        private final PistonExecuteRequest request;
+        private final String boundary;
+        private final int size;
+
+        private Batch(PistonExecuteRequest request, String boundary, int size) {
+            this.request = request;
+            this.boundary = boundary;
+            this.size = size;
+        }
+
+        public PistonExecuteRequest getRequest() {
+            return request;
+        }
+
+        /**
+         * Split the batch execution into one response per input, in input order. Inputs the
+         * harness never reported on, because the batch was killed before finishing them,
+         * are null; they never ran to completion and have no verdict. If the
+         * code didn't compile, every input gets the compile result.
+         */
+        public List<PistonExecuteResponse> split(PistonExecuteResponse response) {
+            PistonExecuteResponse.RunResult run = response.getRun();
+            List<PistonExecuteResponse> responses = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                responses.add(run == null ? withRun(response, null) : null);
+            }
+            if (run == null) {
+                return responses;
+            }
+
+            String stdout = run.getStdout() != null ? run.getStdout() : "";
+            String separator = "\n@@" + boundary + " ";
+            int startedIndex = -1;
+            String startedOutput = null;
+            int at = stdout.indexOf(separator);
+            while (at >= 0) {
+                int headerStart = at + separator.length();
+                int headerEnd = stdout.indexOf('\n', headerStart);
+                if (headerEnd < 0) {
+                    break;
+                }
+                String[] header = stdout.substring(headerStart, headerEnd).split(" ");
+                int next = stdout.indexOf(separator, headerEnd);
+                try {
+                    if (header.length == 2 && "start".equals(header[1])) {
+                        // The input's output runs up to the next marker
+                        startedIndex = Integer.parseInt(header[0]);
+                        startedOutput = stdout.substring(headerEnd + 1, next < 0 ? stdout.length() : next);
+                    } else if (header.length == 6) {
+                        int index = Integer.parseInt(header[0]);
+                        int code = Integer.parseInt(header[1]);
+                        int signal = Integer.parseInt(header[2]);
+                        long wallTime = Long.parseLong(header[3]);
+                        long cpuTime = Long.parseLong(header[4]);
+                        long memory = Long.parseLong(header[5]) * 1024;
+                        if (index == startedIndex && index >= 0 && index < size) {
+                            String output = startedOutput;
+                            PistonExecuteResponse.RunResult result = signal != 0
+                                ? new PistonExecuteResponse.RunResult(output, "", output, null,
+                                    SIGNAL_NAMES.getOrDefault(signal, "SIG" + signal), null, wallTime, cpuTime, memory)
+                                : new PistonExecuteResponse.RunResult(output, "", output, code, null, null,
+                                    wallTime, cpuTime, memory);
+                            responses.set(index, withRun(response, result));
+                        }
+                        startedIndex = -1;
+                    } else {
+                        break; // "end" marker
+                    }
+                } catch (NumberFormatException e) {
+                    break;
+                }
+                at = next;
+            }
+            return responses;
+        }
+
+        private PistonExecuteResponse withRun(PistonExecuteResponse response, PistonExecuteResponse.RunResult run) {
+            return new PistonExecuteResponse(response.getLanguage(), response.getVersion(), run, response.getCompile());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.crucible.platform.v1.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Count-based circuit breaker for calls to a remote executor.
+ *
+ * CLOSED: calls pass; the outcomes of the last {@code windowSize} calls are recorded and the
+ * breaker opens once at least {@code minimumCalls} were made and the failure rate reaches
+ * {@code failureRateThreshold}.
+ * OPEN: calls are rejected with {@link CircuitOpenException} for {@code openDuration}.
+ * HALF_OPEN: up to {@code halfOpenCalls} trial calls pass; any failure opens the breaker again,
+ * all of them succeeding closes it.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMillis;
+    private final int halfOpenCalls;
+
+    // Ring buffer of the last windowSize outcomes while CLOSED
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private long rejectedCalls;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMillis = openDuration.toMillis();
+        this.halfOpenCalls = halfOpenCalls;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Guard a call. It is subscribed only if the breaker lets it through, and its outcome is
+     * recorded as a failure when {@code isFailure} accepts the error. Cancelled calls are not
+     * recorded but give back their half-open permit.
+     */
+    public <T> Mono<T> protect(Mono<T> call, Predicate<Throwable> isFailure) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(new CircuitOpenException(name));
+            }
+            return call
+                .doOnSuccess(value -> onSuccess())
+                .doOnError(e -> {
+                    if (isFailure.test(e)) {
+                        onFailure();
+                    } else {
+                        onSuccess();
+                    }
+                })
+                .doOnCancel(this::onCancel);
+        });
+    }
+
+    public synchronized State getState() {
+        // Report HALF_OPEN as soon as the open period is over, even before the next call
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                rejectedCalls++;
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                rejectedCalls++;
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    private synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenPermits > halfOpenSuccesses) {
+            halfOpenPermits--;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void transitionTo(State newState) {
+        logger.warn("Circuit breaker '{}' {} -> {}", name, state, newState);
+        state = newState;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+        if (newState == State.CLOSED) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+        }
+    }
+
+    /**
+     * Raised instead of making the call while the breaker is open
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String name) {
+            super("Circuit breaker '" + name + "' is open, executor is unavailable");
+        }
+    }
+}
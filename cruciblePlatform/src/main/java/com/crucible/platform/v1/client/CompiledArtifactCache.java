@@ -0,0 +1,182 @@
+package com.crucible.platform.v1.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of compiled programs for the local executor, so that code which
+ * was already compiled (a "Run" followed by an unchanged submit) only pays for execution.
+ *
+ * Entries are keyed by SHA-256 over language, toolchain version and source files, and live
+ * as one directory per key under {@code crucible.local-executor.artifact-cache.dir}. The
+ * total size is bounded; the least recently used entries are evicted first.
+ */
+@Component
+@ConditionalOnProperty(name = "crucible.judge.backend", havingValue = "local")
+public class CompiledArtifactCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledArtifactCache.class);
+
+    private final boolean enabled;
+    private final Path root;
+    private final long maxSizeBytes;
+
+    // key -> entry size in bytes, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSizeBytes;
+
+    public CompiledArtifactCache(
+            @Value("${crucible.local-executor.artifact-cache.enabled}") boolean enabled,
+            @Value("${crucible.local-executor.artifact-cache.dir}") String dir,
+            @Value("${crucible.local-executor.artifact-cache.max-size-mb}") long maxSizeMb) throws IOException {
+        this.enabled = enabled;
+        this.root = Path.of(dir);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        if (enabled) {
+            Files.createDirectories(root);
+            loadExistingEntries();
+        }
+    }
+
+    public String key(String language, String toolchainVersion, List<String> sources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(language.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(toolchainVersion.getBytes(StandardCharsets.UTF_8));
+            for (String source : sources) {
+                digest.update((byte) 0);
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Copy the cached artifacts for the key into the job directory. Returns false on a miss.
+     */
+    public boolean restore(String key, Path jobDir) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return false;
+            }
+        }
+        Path entryDir = root.resolve(key);
+        try (Stream<Path> files = Files.list(entryDir)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, jobDir.resolve(file.getFileName()),
+                    StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            // Evicted while we were copying; compile instead
+            logger.debug("Compiled artifact {} could not be restored: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Store everything the compiler produced in the job directory, except the given inputs
+     */
+    public void store(String key, Path jobDir, Set<String> excludedFiles) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+        }
+        Path staging = root.resolve(key + ".tmp-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(staging);
+            long size = 0;
+            try (Stream<Path> files = Files.list(jobDir)) {
+                for (Path file : files.toList()) {
+                    String name = file.getFileName().toString();
+                    if (excludedFiles.contains(name) || name.startsWith(".") || !Files.isRegularFile(file)) {
+                        continue;
+                    }
+                    Files.copy(file, staging.resolve(name), StandardCopyOption.COPY_ATTRIBUTES);
+                    size += Files.size(file);
+                }
+            }
+            // Publish atomically so concurrent restores never see a half-written entry
+            Files.move(staging, root.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                entries.put(key, size);
+                totalSizeBytes += size;
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to cache compiled artifact {}: {}", key, e.getMessage());
+            FileSystemUtils.deleteRecursively(staging.toFile());
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalSizeBytes > maxSizeBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalSizeBytes -= entry.getValue();
+            FileSystemUtils.deleteRecursively(root.resolve(entry.getKey()).toFile());
+        }
+    }
+
+    /**
+     * Rebuild the index from disk after a restart, oldest entries first
+     */
+    private void loadExistingEntries() throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        try (Stream<Path> children = Files.list(root)) {
+            for (Path dir : children.toList()) {
+                if (dir.getFileName().toString().contains(".tmp-")) {
+                    FileSystemUtils.deleteRecursively(dir);
+                } else if (Files.isDirectory(dir)) {
+                    dirs.add(dir);
+                }
+            }
+        }
+        dirs.sort(Comparator.comparing(dir -> dir.toFile().lastModified()));
+        synchronized (this) {
+            for (Path dir : dirs) {
+                long size;
+                try (Stream<Path> files = Files.list(dir)) {
+                    size = files.mapToLong(file -> file.toFile().length()).sum();
+                }
+                entries.put(dir.getFileName().toString(), size);
+                totalSizeBytes += size;
+            }
+            evictIfNeeded();
+        }
+        logger.info("Compiled artifact cache at {} holds {} entries ({} bytes)", root, entries.size(), totalSizeBytes);
+    }
+}
@@ -0,0 +1,34 @@
+package com.crucible.platform.v1.client;
+
+import java.util.List;
+
+import com.crucible.platform.v1.dto.submission.PistonExecuteRequest;
+import com.crucible.platform.v1.dto.submission.PistonExecuteResponse;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Compiles and runs submitted code. Selected with {@code crucible.judge.backend}.
+ * Requests and responses use the Piston wire format whichever backend runs them.
+ */
+public interface ExecutionBackend {
+
+    /**
+     * Compile and run the code once with the request's stdin
+     */
+    Mono<PistonExecuteResponse> executeCode(PistonExecuteRequest request);
+
+    /**
+     * Compile once and run the code against every input. Returns one response per input, in input order.
+     * An input the executor never got to report on has a null response; it has no verdict and
+     * has to be run on its own. With {@code failFast} the executor may stop after the first input
+     * that exits non-zero or is killed, leaving the rest unreported.
+     */
+    Mono<List<PistonExecuteResponse>> executeBatch(PistonExecuteRequest request, List<String> inputs,
+                                                   boolean failFast);
+
+    /**
+     * Whether {@link #executeBatch} is available for this request's language and limits
+     */
+    boolean supportsBatch(PistonExecuteRequest request);
+}
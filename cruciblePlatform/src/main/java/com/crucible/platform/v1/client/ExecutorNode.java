@@ -0,0 +1,83 @@
+package com.crucible.platform.v1.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Piston executor endpoint: its in-flight request count for least-outstanding-requests
+ * routing, its own circuit breaker, and the result of the background health checks.
+ *
+ * A node takes traffic while it is healthy and its breaker is not open. It is ejected after
+ * {@code unhealthyThreshold} consecutive failed health checks and brought back after
+ * {@code healthyThreshold} consecutive successful ones.
+ */
+class ExecutorNode {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorNode.class);
+
+    private final String url;
+    private final CircuitBreaker circuitBreaker;
+    private final int unhealthyThreshold;
+    private final int healthyThreshold;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean healthy = true;
+    // Only touched by the health check loop, one check per node at a time
+    private int consecutiveFailures;
+    private int consecutiveSuccesses;
+
+    ExecutorNode(String url, CircuitBreaker circuitBreaker, int unhealthyThreshold, int healthyThreshold) {
+        this.url = url;
+        this.circuitBreaker = circuitBreaker;
+        this.unhealthyThreshold = unhealthyThreshold;
+        this.healthyThreshold = healthyThreshold;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    boolean isAvailable() {
+        return healthy && circuitBreaker.getState() != CircuitBreaker.State.OPEN;
+    }
+
+    void acquire() {
+        inFlight.incrementAndGet();
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    void healthCheckSucceeded() {
+        consecutiveFailures = 0;
+        if (!healthy && ++consecutiveSuccesses >= healthyThreshold) {
+            healthy = true;
+            consecutiveSuccesses = 0;
+            logger.info("Executor node {} passed {} health checks, bringing it back", url, healthyThreshold);
+        }
+    }
+
+    void healthCheckFailed(Throwable e) {
+        consecutiveSuccesses = 0;
+        if (healthy && ++consecutiveFailures >= unhealthyThreshold) {
+            healthy = false;
+            consecutiveFailures = 0;
+            logger.warn("Executor node {} failed {} health checks, ejecting it: {}", url, unhealthyThreshold, e.getMessage());
+        }
+    }
+}
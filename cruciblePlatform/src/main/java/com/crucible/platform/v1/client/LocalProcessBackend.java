@@ -0,0 +1,447 @@
+package com.crucible.platform.v1.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import com.crucible.platform.v1.dto.submission.PistonExecuteRequest;
+import com.crucible.platform.v1.dto.submission.PistonExecuteResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles and runs code in child processes on this machine, without any network hop.
+ *
+ * Every execution gets its own directory under {@code crucible.local-executor.work-dir}
+ * (a tmpfs such as /dev/shm by default). Each compile and run is wrapped in the configured
+ * sandbox command (by default a fresh user and network namespace) and in prlimit for CPU
+ * time, address space and file size limits. Wall-clock timeouts kill the whole process tree.
+ * Compiled programs are reused through the {@link CompiledArtifactCache}.
+ * A cgroup-based limiter such as {@code systemd-run --scope -p MemoryMax=...} can be put
+ * in the sandbox command where the host allows it.
+ *
+ * Python and JavaScript runs are served by a {@link WarmRuntimePool} of interpreters started
+ * ahead of time where one is configured, and start cold when the pool is empty.
+ *
+ * Wall time is measured here. CPU time and peak RSS come from GNU time
+ * ({@code crucible.local-executor.usage-command}), which reports the rusage of the sandboxed
+ * program; without it only wall time is reported.
+ */
+@Component
+@ConditionalOnProperty(name = "crucible.judge.backend", havingValue = "local")
+public class LocalProcessBackend implements ExecutionBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalProcessBackend.class);
+
+    private static final int OUTPUT_LIMIT_BYTES = 16 * 1024 * 1024;
+    private static final String USAGE_FILE = ".usage";
+
+    /**
+     * How to build and start a program. {@code {class}} is replaced with the Java main class.
+     * Runtimes that reserve large virtual address ranges (the JVM, Go) can't run under an
+     * address space limit. The version command output is part of the compiled artifact key.
+     */
+    private record Toolchain(String sourceFile, List<String> compileCommand, List<String> runCommand,
+                             boolean limitAddressSpace, List<String> versionCommand) {
+    }
+
+    private static final Map<String, Toolchain> TOOLCHAINS = Map.of(
+        "c", new Toolchain("main.c", List.of("gcc", "-O2", "-std=gnu17", "-o", "main", "main.c", "-lm"),
+            List.of("./main"), true, List.of("gcc", "--version")),
+        "cpp", new Toolchain("main.cpp", List.of("g++", "-O2", "-std=gnu++17", "-o", "main", "main.cpp"),
+            List.of("./main"), true, List.of("g++", "--version")),
+        "java", new Toolchain("{class}.java", List.of("javac", "-d", ".", "{class}.java"),
+            List.of("java", "-Xss64m", "-cp", ".", "{class}"), false, List.of("javac", "-version")),
+        "python", new Toolchain("main.py", null, List.of("python3", "main.py"), true, null),
+        "javascript", new Toolchain("main.js", null, List.of("node", "main.js"), false, null),
+        "go", new Toolchain("main.go", List.of("go", "build", "-o", "main", "main.go"),
+            List.of("./main"), false, List.of("go", "version")),
+        "rust", new Toolchain("main.rs", List.of("rustc", "-O", "-o", "main", "main.rs"),
+            List.of("./main"), true, List.of("rustc", "--version")),
+        "ruby", new Toolchain("main.rb", null, List.of("ruby", "main.rb"), true, null),
+        "php", new Toolchain("main.php", null, List.of("php", "main.php"), true, null)
+    );
+
+    private static final Pattern JAVA_COMMENTS = Pattern.compile("(?s)/\\*.*?\\*/|//[^\\n]*");
+    private static final Pattern JAVA_PUBLIC_CLASS = Pattern.compile("\\bpublic\\s+(?:final\\s+)?class\\s+([A-Za-z_$][\\w$]*)");
+    private static final Pattern JAVA_CLASS = Pattern.compile("\\bclass\\s+([A-Za-z_$][\\w$]*)");
+
+    private final Path workRoot;
+    private final List<String> sandboxCommand;
+    private final long defaultMemoryLimitBytes;
+    private final List<String> usageCommand;
+    private final CompiledArtifactCache artifactCache;
+    private final WarmRuntimePool warmRuntimePool;
+    private final Map<String, String> toolchainVersions = new ConcurrentHashMap<>();
+
+    public LocalProcessBackend(
+            CompiledArtifactCache artifactCache,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.local-executor.work-dir}") String workDir,
+            @Value("${crucible.local-executor.sandbox-command}") String sandboxCommand,
+            @Value("${crucible.local-executor.memory-limit-mb}") long memoryLimitMb,
+            @Value("${crucible.local-executor.usage-command}") String usageCommand,
+            @Value("${crucible.local-executor.warm-pool.enabled}") boolean warmPoolEnabled,
+            @Value("${crucible.local-executor.warm-pool.max-idle}") Duration warmPoolMaxIdle,
+            @Value("${crucible.local-executor.warm-pool.cpu-ceiling-seconds}") long warmPoolCpuCeilingSeconds) throws IOException {
+        this.artifactCache = artifactCache;
+        this.workRoot = Files.createDirectories(Path.of(workDir));
+        this.sandboxCommand = sandboxCommand.isBlank()
+            ? List.of()
+            : Arrays.asList(sandboxCommand.trim().split("\\s+"));
+        this.defaultMemoryLimitBytes = memoryLimitMb * 1024 * 1024;
+        if (usageCommand.isBlank()) {
+            this.usageCommand = List.of();
+        } else if (Files.isExecutable(Path.of(usageCommand.trim()))) {
+            this.usageCommand = List.of(usageCommand.trim(), "-f", "%U %S %M", "-o", USAGE_FILE);
+        } else {
+            logger.warn("Usage command {} not found, CPU time and memory will not be reported", usageCommand);
+            this.usageCommand = List.of();
+        }
+        logger.info("Local executor using work dir {} and sandbox {}", workRoot, this.sandboxCommand);
+
+        Map<String, Integer> warmPoolSizes = Binder.get(environment)
+            .bind("crucible.local-executor.warm-pool.languages", Bindable.mapOf(String.class, Integer.class))
+            .orElse(Map.of());
+        List<String> commandPrefix = new ArrayList<>(this.usageCommand);
+        commandPrefix.addAll(this.sandboxCommand);
+        this.warmRuntimePool = warmPoolEnabled && !warmPoolSizes.isEmpty()
+            ? new WarmRuntimePool(workRoot, commandPrefix, OUTPUT_LIMIT_BYTES, warmPoolSizes,
+                warmPoolCpuCeilingSeconds, warmPoolMaxIdle, meterRegistry)
+            : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (warmRuntimePool != null) {
+            warmRuntimePool.close();
+        }
+    }
+
+    @Override
+    public Mono<PistonExecuteResponse> executeCode(PistonExecuteRequest request) {
+        return executeBatch(request, Collections.singletonList(request.getStdin()), false)
+            .map(responses -> responses.get(0));
+    }
+
+    @Override
+    public Mono<List<PistonExecuteResponse>> executeBatch(PistonExecuteRequest request, List<String> inputs,
+                                                          boolean failFast) {
+        // Process management blocks, keep it off the event loop
+        return Mono.fromCallable(() -> run(request, inputs, failFast))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Only compiled languages gain from a batch: it shares one compilation, while the inputs still run one
+     * after another. Interpreted ones are judged per input, so their inputs can run concurrently.
+     */
+    @Override
+    public boolean supportsBatch(PistonExecuteRequest request) {
+        Toolchain toolchain = TOOLCHAINS.get(request.getLanguage());
+        return toolchain != null && toolchain.compileCommand() != null;
+    }
+
+    private List<PistonExecuteResponse> run(PistonExecuteRequest request, List<String> inputs, boolean failFast)
+            throws IOException {
+        Toolchain toolchain = TOOLCHAINS.get(request.getLanguage());
+        if (toolchain == null) {
+            throw new IllegalArgumentException("Language not supported by the local executor: " + request.getLanguage());
+        }
+
+        List<PistonExecuteRequest.PistonFile> files = request.getFiles();
+        String mainClass = "java".equals(request.getLanguage()) ? javaMainClass(files.get(0).getContent()) : "";
+
+        Path jobDir = Files.createTempDirectory(workRoot, "job-");
+        try {
+            // The toolchain expects a fixed entry file name; additional files keep theirs
+            Set<String> sourceFiles = new HashSet<>();
+            String entryFile = toolchain.sourceFile().replace("{class}", mainClass);
+            Files.writeString(jobDir.resolve(entryFile), files.get(0).getContent());
+            sourceFiles.add(entryFile);
+            for (PistonExecuteRequest.PistonFile file : files.subList(1, files.size())) {
+                String name = Path.of(file.getName()).getFileName().toString();
+                Files.writeString(jobDir.resolve(name), file.getContent());
+                sourceFiles.add(name);
+            }
+
+            PistonExecuteResponse.CompileResult compile = null;
+            if (toolchain.compileCommand() != null) {
+                // Reuse an earlier compilation of the same code with the same toolchain if there is one;
+                // without a known toolchain version nothing is reused or stored
+                String version = toolchainVersion(request.getLanguage(), toolchain);
+                String artifactKey = version == null ? null : artifactCache.key(request.getLanguage(), version,
+                    files.stream().map(PistonExecuteRequest.PistonFile::getContent).toList());
+                if (artifactKey != null && artifactCache.restore(artifactKey, jobDir)) {
+                    compile = new PistonExecuteResponse.CompileResult("", "", "", 0, null);
+                } else {
+                    StageResult result = runStage(jobDir, withMainClass(toolchain.compileCommand(), mainClass), null,
+                        request.getCompile_timeout(), limitOrDefault(request.getCompile_memory_limit()), false);
+                    compile = new PistonExecuteResponse.CompileResult(result.stdout(), result.stderr(),
+                        result.stdout() + result.stderr(), result.code(), result.signal());
+                    if (result.code() == null || result.code() != 0) {
+                        List<PistonExecuteResponse> failed = new ArrayList<>();
+                        for (int i = 0; i < inputs.size(); i++) {
+                            failed.add(new PistonExecuteResponse(request.getLanguage(), "local", null, compile));
+                        }
+                        return failed;
+                    }
+                    if (artifactKey != null) {
+                        artifactCache.store(artifactKey, jobDir, sourceFiles);
+                    }
+                }
+            }
+
+            List<String> runCommand = withMainClass(toolchain.runCommand(), mainClass);
+            List<PistonExecuteResponse> responses = new ArrayList<>(inputs.size());
+            boolean warm = compile == null && warmRuntimePool != null && warmRuntimePool.supports(request.getLanguage());
+            for (String input : inputs) {
+                StageResult result = warm
+                    ? runWarm(request, input, limitOrDefault(request.getRun_memory_limit()), toolchain.limitAddressSpace())
+                    : null;
+                if (result == null) {
+                    result = runStage(jobDir, runCommand, input,
+                        request.getRun_timeout(), limitOrDefault(request.getRun_memory_limit()), toolchain.limitAddressSpace());
+                }
+                PistonExecuteResponse.RunResult run = new PistonExecuteResponse.RunResult(result.stdout(),
+                    result.stderr(), result.stdout() + result.stderr(), result.code(), result.signal(), null,
+                    result.wallTimeMs(), result.cpuTimeMs(), result.memoryBytes());
+                responses.add(new PistonExecuteResponse(request.getLanguage(), "local", run, compile));
+                if (failFast && (result.signal() != null || result.code() == null || result.code() != 0)) {
+                    break;
+                }
+            }
+            // Inputs skipped after a failure are unreported
+            while (responses.size() < inputs.size()) {
+                responses.add(null);
+            }
+            return responses;
+        } finally {
+            FileSystemUtils.deleteRecursively(jobDir);
+        }
+    }
+
+    private record StageResult(String stdout, String stderr, Integer code, String signal, long wallTimeMs,
+                               Long cpuTimeMs, Long memoryBytes) {
+    }
+
+    private StageResult runStage(Path jobDir, List<String> command, String stdin, Integer timeoutMs,
+                                 long memoryLimitBytes, boolean limitAddressSpace) throws IOException {
+        long timeout = timeoutOrDefault(timeoutMs);
+
+        // GNU time stays outside the sandbox so that it can write its report into the job directory
+        List<String> fullCommand = new ArrayList<>(usageCommand);
+        fullCommand.addAll(sandboxCommand);
+        fullCommand.add("prlimit");
+        fullCommand.add("--cpu=" + (timeout / 1000 + 1));
+        fullCommand.add("--fsize=" + OUTPUT_LIMIT_BYTES);
+        if (limitAddressSpace) {
+            fullCommand.add("--as=" + memoryLimitBytes);
+        }
+        fullCommand.add("--");
+        fullCommand.addAll(command);
+
+        Path stdinFile = jobDir.resolve(".stdin");
+        Files.writeString(stdinFile, stdin != null ? stdin : "");
+        Files.deleteIfExists(jobDir.resolve(USAGE_FILE));
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(fullCommand)
+            .directory(jobDir.toFile())
+            .redirectInput(stdinFile.toFile())
+            .redirectOutput(jobDir.resolve(".stdout").toFile())
+            .redirectError(jobDir.resolve(".stderr").toFile())
+            .start();
+        return awaitStage(process, jobDir, timeout, started);
+    }
+
+    /**
+     * Run the program on a warm interpreter, or return null if none is idle. The limits go to
+     * the worker's bootstrap, which applies them before starting the program.
+     */
+    private StageResult runWarm(PistonExecuteRequest request, String stdin, long memoryLimitBytes,
+                                boolean limitAddressSpace) throws IOException {
+        WarmRuntimePool.Worker worker = warmRuntimePool.take(request.getLanguage());
+        if (worker == null) {
+            return null;
+        }
+        try {
+            List<PistonExecuteRequest.PistonFile> files = request.getFiles();
+            Files.writeString(worker.dir().resolve(warmRuntimePool.entryFile(request.getLanguage())),
+                files.get(0).getContent());
+            for (PistonExecuteRequest.PistonFile file : files.subList(1, files.size())) {
+                Files.writeString(worker.dir().resolve(Path.of(file.getName()).getFileName().toString()), file.getContent());
+            }
+            long timeout = timeoutOrDefault(request.getRun_timeout());
+            long started = System.nanoTime();
+            warmRuntimePool.start(worker, timeout / 1000 + 1, memoryLimitBytes, limitAddressSpace, stdin);
+            return awaitStage(worker.process(), worker.dir(), timeout, started);
+        } finally {
+            worker.process().descendants().forEach(ProcessHandle::destroyForcibly);
+            FileSystemUtils.deleteRecursively(worker.dir());
+        }
+    }
+
+    /**
+     * Wait for a started stage, killing it on its wall-clock timeout, and collect its result
+     * from {@code dir}
+     */
+    private StageResult awaitStage(Process process, Path dir, long timeout, long started) throws IOException {
+        boolean finished;
+        try {
+            finished = process.waitFor(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        long wallTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        Integer code;
+        String signal;
+        if (!finished) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+            code = null;
+            signal = "SIGKILL";
+        } else if (process.exitValue() > 128) {
+            // Killed by a signal (128 + signal number), e.g. SIGXCPU from the CPU limit; GNU time
+            // exits the same way
+            code = null;
+            signal = signalName(process.exitValue() - 128);
+        } else {
+            code = process.exitValue();
+            signal = null;
+        }
+        if (!finished) {
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long[] usage = readUsage(dir.resolve(USAGE_FILE));
+        return new StageResult(readCapped(dir.resolve(".stdout")), readCapped(dir.resolve(".stderr")), code, signal, wallTimeMs,
+            usage != null ? usage[0] : null, usage != null ? usage[1] : null);
+    }
+
+    /**
+     * CPU time in ms and peak RSS in bytes from GNU time's report, whose last line is
+     * "user seconds, system seconds, max RSS in kB". Null if there is no report, e.g. when
+     * the run was killed on its wall-clock timeout.
+     */
+    private long[] readUsage(Path usageFile) {
+        try {
+            if (!Files.exists(usageFile)) {
+                return null;
+            }
+            List<String> lines = Files.readAllLines(usageFile);
+            String[] fields = lines.get(lines.size() - 1).trim().split("\\s+");
+            long cpuTimeMs = Math.round((Double.parseDouble(fields[0]) + Double.parseDouble(fields[1])) * 1000);
+            return new long[] {cpuTimeMs, Long.parseLong(fields[2]) * 1024};
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Unreadable usage report: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> withMainClass(List<String> command, String mainClass) {
+        return command.stream().map(part -> part.replace("{class}", mainClass)).toList();
+    }
+
+    /**
+     * The class javac needs the file to be named after: the public class if there is one,
+     * otherwise the first top-level class, like the single-file source launcher picks it.
+     */
+    private String javaMainClass(String source) {
+        String code = JAVA_COMMENTS.matcher(source).replaceAll("");
+        Matcher publicClass = JAVA_PUBLIC_CLASS.matcher(code);
+        if (publicClass.find()) {
+            return publicClass.group(1);
+        }
+        Matcher anyClass = JAVA_CLASS.matcher(code);
+        return anyClass.find() ? anyClass.group(1) : "Main";
+    }
+
+    /**
+     * First line of the toolchain's version output, looked up once per language. Null if the
+     * version command failed; a failure is not remembered, so the next call tries again.
+     */
+    private String toolchainVersion(String language, Toolchain toolchain) {
+        String cached = toolchainVersions.get(language);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            Process process = new ProcessBuilder(toolchain.versionCommand()).redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            String version = output.lines().findFirst().map(String::strip).orElse("");
+            if (process.waitFor() != 0 || version.isEmpty()) {
+                logger.warn("Version command of the {} toolchain failed, not reusing compilations: {}", language, version);
+                return null;
+            }
+            toolchainVersions.putIfAbsent(language, version);
+            return version;
+        } catch (IOException e) {
+            logger.warn("Version command of the {} toolchain failed, not reusing compilations: {}", language, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private long timeoutOrDefault(Integer timeoutMs) {
+        return timeoutMs != null && timeoutMs > 0 ? timeoutMs : 3000;
+    }
+
+    private long limitOrDefault(Long limitBytes) {
+        return limitBytes != null && limitBytes > 0 ? limitBytes : defaultMemoryLimitBytes;
+    }
+
+    private String readCapped(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return new String(in.readNBytes(OUTPUT_LIMIT_BYTES), StandardCharsets.UTF_8);
+        }
+    }
+
+    private String signalName(int signal) {
+        return switch (signal) {
+            case 6 -> "SIGABRT";
+            case 8 -> "SIGFPE";
+            case 9 -> "SIGKILL";
+            case 11 -> "SIGSEGV";
+            case 24 -> "SIGXCPU";
+            case 25 -> "SIGXFSZ";
+            default -> "SIG" + signal;
+        };
+    }
+}
@@ -1,8 +1,33 @@
 package com.crucible.platform.v1.client;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.handler.timeout.ReadTimeoutException;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.crucible.platform.v1.dto.submission.PistonExecuteRequest;
 import com.crucible.platform.v1.dto.submission.PistonExecuteResponse;
@@ -10,27 +35,185 @@ import com.crucible.platform.v1.dto.submission.PistonExecuteResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Executes code on a pool of Piston nodes. Each execution goes to the available node with the
+ * fewest in-flight requests; a retry prefers a different node than the attempt that failed.
+ * Nodes are health-checked in the background and every node has its own circuit breaker, so a
+ * failing node stops taking traffic while the others absorb the load.
+ */
 @Component
-public class PistonClient {
+@ConditionalOnProperty(name = "crucible.judge.backend", havingValue = "piston", matchIfMissing = true)
+public class PistonClient implements ExecutionBackend {
     
     private final WebClient webClient;
-    private static final String PISTON_API_URL = "https://emkc.org/api/v2/piston";
+    private final BatchHarness batchHarness;
+    private final List<ExecutorNode> nodes;
+    private final RetryBackoffSpec retrySpec;
+    private final Duration deadline;
+    private final boolean healthChecksEnabled;
+    private final Duration healthCheckInterval;
+    private final Duration healthCheckTimeout;
+
+    private Disposable healthChecks;
 
     private static final Logger logger = LoggerFactory.getLogger(PistonClient.class);
 
-    public PistonClient(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder
-            .baseUrl(PISTON_API_URL)
-            .build();
+    public PistonClient(
+            @Qualifier("pistonWebClient") WebClient webClient,
+            BatchHarness batchHarness,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.piston.urls}") List<String> pistonApiUrls,
+            @Value("${crucible.piston.deadline}") Duration deadline,
+            @Value("${crucible.piston.retry.max-attempts}") int maxAttempts,
+            @Value("${crucible.piston.retry.min-backoff}") Duration minBackoff,
+            @Value("${crucible.piston.retry.max-backoff}") Duration maxBackoff,
+            @Value("${crucible.piston.retry.jitter}") double jitter,
+            @Value("${crucible.piston.circuit-breaker.window-size}") int windowSize,
+            @Value("${crucible.piston.circuit-breaker.minimum-calls}") int minimumCalls,
+            @Value("${crucible.piston.circuit-breaker.failure-rate-threshold}") double failureRateThreshold,
+            @Value("${crucible.piston.circuit-breaker.open-duration}") Duration openDuration,
+            @Value("${crucible.piston.circuit-breaker.half-open-calls}") int halfOpenCalls,
+            @Value("${crucible.piston.health-check.enabled}") boolean healthChecksEnabled,
+            @Value("${crucible.piston.health-check.interval}") Duration healthCheckInterval,
+            @Value("${crucible.piston.health-check.timeout}") Duration healthCheckTimeout,
+            @Value("${crucible.piston.health-check.unhealthy-threshold}") int unhealthyThreshold,
+            @Value("${crucible.piston.health-check.healthy-threshold}") int healthyThreshold) {
+        this.webClient = webClient;
+        this.batchHarness = batchHarness;
+        this.deadline = deadline;
+        this.healthChecksEnabled = healthChecksEnabled;
+        this.healthCheckInterval = healthCheckInterval;
+        this.healthCheckTimeout = healthCheckTimeout;
+
+        List<ExecutorNode> executorNodes = new ArrayList<>();
+        for (String url : pistonApiUrls) {
+            String baseUrl = url.trim().replaceAll("/+$", "");
+            if (baseUrl.isEmpty()) {
+                continue;
+            }
+            CircuitBreaker circuitBreaker = new CircuitBreaker("piston " + baseUrl, windowSize, minimumCalls,
+                failureRateThreshold, openDuration, halfOpenCalls);
+            ExecutorNode node = new ExecutorNode(baseUrl, circuitBreaker, unhealthyThreshold, healthyThreshold);
+            executorNodes.add(node);
+            registerNodeMetrics(meterRegistry, node);
+        }
+        if (executorNodes.isEmpty()) {
+            throw new IllegalStateException("crucible.piston.urls must list at least one Piston endpoint");
+        }
+        this.nodes = List.copyOf(executorNodes);
+        logger.info("Piston executor pool: {}", nodes.stream().map(ExecutorNode::getUrl).toList());
+
+        Counter retries = Counter.builder("crucible.piston.retries")
+            .description("Piston calls retried after a transient failure")
+            .register(meterRegistry);
+        this.retrySpec = Retry.backoff(maxAttempts - 1, minBackoff)
+            .maxBackoff(maxBackoff)
+            .jitter(jitter)
+            .filter(PistonClient::isRetryable)
+            .doBeforeRetry(signal -> {
+                retries.increment();
+                logger.warn("Retrying Piston call (attempt {}): {}", signal.totalRetries() + 2, signal.failure().getMessage());
+            })
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static void registerNodeMetrics(MeterRegistry meterRegistry, ExecutorNode node) {
+        Tags tags = Tags.of("node", node.getUrl());
+        Gauge.builder("crucible.piston.node.in-flight", node, ExecutorNode::getInFlight)
+            .description("Executions in flight on the Piston node")
+            .tags(tags)
+            .register(meterRegistry);
+        Gauge.builder("crucible.piston.node.healthy", node, n -> n.isHealthy() ? 1 : 0)
+            .description("1 while the Piston node passes its health checks, 0 while ejected")
+            .tags(tags)
+            .register(meterRegistry);
+        Gauge.builder("crucible.piston.circuit.state", node.getCircuitBreaker(), breaker -> breaker.getState().ordinal())
+            .description("Piston circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .tags(tags)
+            .register(meterRegistry);
+        FunctionCounter.builder("crucible.piston.circuit.rejected", node.getCircuitBreaker(), CircuitBreaker::getRejectedCalls)
+            .description("Piston calls rejected without being attempted while the circuit was open")
+            .tags(tags)
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startHealthChecks() {
+        if (!healthChecksEnabled) {
+            return;
+        }
+        logger.info("Health-checking {} Piston nodes every {}", nodes.size(), healthCheckInterval);
+        healthChecks = Flux.interval(Duration.ZERO, healthCheckInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> Flux.fromIterable(nodes).flatMap(this::checkHealth).then())
+            .subscribe(null, e -> logger.error("Piston health checks stopped: {}", e.getMessage(), e));
+    }
+
+    @PreDestroy
+    public void stopHealthChecks() {
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+    }
+
+    private Mono<Void> checkHealth(ExecutorNode node) {
+        return webClient.get()
+            .uri(node.getUrl() + "/runtimes")
+            .retrieve()
+            .toBodilessEntity()
+            .timeout(healthCheckTimeout)
+            .doOnSuccess(ignored -> node.healthCheckSucceeded())
+            .onErrorResume(e -> {
+                node.healthCheckFailed(e);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    @Override
+    public boolean supportsBatch(PistonExecuteRequest request) {
+        return batchHarness.supports(request);
+    }
+
+    /**
+     * Compile once and run the code against every input in a single Piston execution.
+     * Returns one response per input, in input order; null for inputs the batch was killed
+     * before finishing.
+     */
+    @Override
+    public Mono<List<PistonExecuteResponse>> executeBatch(PistonExecuteRequest request, List<String> inputs,
+                                                          boolean failFast) {
+        logger.info("Executing batch of {} inputs via Piston API for language: {}", inputs.size(), request.getLanguage());
+        BatchHarness.Batch batch = batchHarness.prepare(request, inputs, failFast);
+        return executeCode(batch.getRequest())
+            .map(batch::split);
     }
 
+    @Override
     public Mono<PistonExecuteResponse> executeCode(PistonExecuteRequest request) {
         logger.info("Executing code via Piston API for language: {}", request.getLanguage());
-        return webClient.post()
-            .uri("/execute")
-            .bodyValue(request)
-            .retrieve()
-            .bodyToMono(PistonExecuteResponse.class)
+        AtomicReference<ExecutorNode> lastNode = new AtomicReference<>();
+
+        // Every attempt picks a node and passes its breaker; the deadline covers all attempts and backoffs
+        Mono<PistonExecuteResponse> attempt = Mono.defer(() -> {
+            ExecutorNode node = selectNode(lastNode.get());
+            if (node == null) {
+                return Mono.error(new NoExecutorAvailableException());
+            }
+            lastNode.set(node);
+            node.acquire();
+            Mono<PistonExecuteResponse> call = webClient.post()
+                .uri(node.getUrl() + "/execute")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(PistonExecuteResponse.class);
+            return node.getCircuitBreaker().protect(call, PistonClient::isExecutorFailure)
+                .doFinally(signal -> node.release());
+        });
+
+        return attempt
+            .retryWhen(retrySpec)
+            .timeout(deadline)
             .doOnNext(response -> logger.info("Piston API execution completed for language: {}, run code: {}, response: {}", 
                 request.getLanguage(), response.getRun() != null ? response.getRun().getCode() : "null", response))
             .onErrorResume(e -> {
@@ -39,4 +222,68 @@ public class PistonClient {
                 return Mono.error(new RuntimeException("Failed to execute code via Piston API", e));
             });
     }
+
+    /**
+     * Least outstanding requests among the available nodes, ties broken at random so that
+     * concurrent selections spread out. {@code avoid}, the node of the previous attempt, is
+     * only chosen if no other node is available.
+     */
+    private ExecutorNode selectNode(ExecutorNode avoid) {
+        ExecutorNode best = null;
+        int bestInFlight = Integer.MAX_VALUE;
+        int ties = 0;
+        for (ExecutorNode node : nodes) {
+            if (node == avoid || !node.isAvailable()) {
+                continue;
+            }
+            int inFlight = node.getInFlight();
+            if (inFlight < bestInFlight) {
+                best = node;
+                bestInFlight = inFlight;
+                ties = 1;
+            } else if (inFlight == bestInFlight && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                best = node;
+            }
+        }
+        if (best == null && avoid != null && avoid.isAvailable()) {
+            return avoid;
+        }
+        return best;
+    }
+
+    /**
+     * Errors that say the executor is unhealthy rather than that the request was bad
+     */
+    private static boolean isExecutorFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return e instanceof WebClientRequestException;
+    }
+
+    /**
+     * Transient errors worth another attempt, possibly on another node. Executions have no side
+     * effects, so a request may be sent again; a response timeout is not retried since it means
+     * Piston is already saturated and another copy of a slow program would only add to the load.
+     */
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status == 502 || status == 503 || status == 504;
+        }
+        if (e instanceof WebClientRequestException) {
+            return !(e.getCause() instanceof ReadTimeoutException);
+        }
+        // A half-open node ran out of trial calls; another node may take the request
+        return e instanceof CircuitBreaker.CircuitOpenException;
+    }
+
+    /**
+     * Raised when every node is ejected or has its circuit open
+     */
+    public static class NoExecutorAvailableException extends RuntimeException {
+        public NoExecutorAvailableException() {
+            super("No healthy Piston executor node is available");
+        }
+    }
 }
@@ -0,0 +1,342 @@
+package com.crucible.platform.v1.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sandboxed interpreters started ahead of time, so that a Python or JavaScript run skips
+ * process and interpreter startup.
+ *
+ * Each worker runs a bootstrap ({@code judge/warm_bootstrap.*}) in its own directory under
+ * the executor's work dir, wrapped in the same usage and sandbox commands as a cold run. It
+ * waits on stdin for a header with the run's limits followed by the test input, then runs the
+ * submission copied into its directory. Workers are never reused: a taken worker is replaced
+ * by a fresh one in the background, and idle workers older than {@code maxIdle} are recycled
+ * so that they don't keep running on a stale interpreter. An empty pool is a miss and the run
+ * starts cold.
+ */
+class WarmRuntimePool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmRuntimePool.class);
+
+    private static final Map<String, Bootstrap> BOOTSTRAPS = Map.of(
+        "python", new Bootstrap("warm_bootstrap.py", List.of("python3"), "main.py"),
+        "javascript", new Bootstrap("warm_bootstrap.js", List.of("node"), "main.js")
+    );
+
+    /**
+     * Interpreter command that runs a bootstrap script, and the entry file the script runs
+     */
+    private record Bootstrap(String script, List<String> interpreter, String entryFile) {
+    }
+
+    /**
+     * A started worker, waiting for its run
+     */
+    static class Worker {
+
+        private final Process process;
+        private final Path dir;
+        private final long startedAt = System.nanoTime();
+
+        private Worker(Process process, Path dir) {
+            this.process = process;
+            this.dir = dir;
+        }
+
+        Process process() {
+            return process;
+        }
+
+        Path dir() {
+            return dir;
+        }
+    }
+
+    /**
+     * Idle workers of one language and their metrics
+     */
+    private class Lane {
+
+        private final String language;
+        private final int size;
+        private final Deque<Worker> idle = new ArrayDeque<>();
+        private final AtomicInteger starting = new AtomicInteger();
+        private final Counter hits;
+        private final Counter misses;
+
+        Lane(String language, int size, MeterRegistry meterRegistry) {
+            this.language = language;
+            this.size = size;
+            this.hits = Counter.builder("crucible.executor.warm-pool.requests")
+                .description("Runs that asked the warm pool for an interpreter")
+                .tags("language", language, "result", "hit")
+                .register(meterRegistry);
+            this.misses = Counter.builder("crucible.executor.warm-pool.requests")
+                .description("Runs that asked the warm pool for an interpreter")
+                .tags("language", language, "result", "miss")
+                .register(meterRegistry);
+            Gauge.builder("crucible.executor.warm-pool.idle", this, lane -> {
+                    synchronized (lane) {
+                        return lane.idle.size();
+                    }
+                })
+                .description("Warm interpreters waiting for a run")
+                .tag("language", language)
+                .register(meterRegistry);
+        }
+
+        Worker take() {
+            List<Worker> retired = new ArrayList<>();
+            Worker taken = null;
+            synchronized (this) {
+                while (taken == null && !idle.isEmpty()) {
+                    Worker worker = idle.pollFirst();
+                    if (worker.process.isAlive() && System.nanoTime() - worker.startedAt < maxIdleNanos) {
+                        taken = worker;
+                    } else {
+                        retired.add(worker);
+                    }
+                }
+            }
+            retired.forEach(WarmRuntimePool.this::destroy);
+            (taken != null ? hits : misses).increment();
+            refill();
+            return taken;
+        }
+
+        /**
+         * Start workers in the background until idle and starting ones reach the pool size
+         */
+        void refill() {
+            int missing;
+            synchronized (this) {
+                missing = size - idle.size() - starting.get();
+                if (missing > 0) {
+                    starting.addAndGet(missing);
+                }
+            }
+            for (int i = 0; i < missing; i++) {
+                launcher.execute(() -> {
+                    Worker worker = null;
+                    try {
+                        worker = launch(language);
+                    } catch (IOException | RuntimeException e) {
+                        logger.warn("Failed to start a warm {} worker: {}", language, e.getMessage());
+                    }
+                    boolean kept = false;
+                    synchronized (this) {
+                        starting.decrementAndGet();
+                        if (worker != null && !closed) {
+                            idle.addLast(worker);
+                            kept = true;
+                        }
+                    }
+                    if (worker != null && !kept) {
+                        destroy(worker);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Recycle workers that have been idle for too long
+         */
+        void recycleStale() {
+            List<Worker> retired = new ArrayList<>();
+            synchronized (this) {
+                idle.removeIf(worker -> {
+                    boolean stale = !worker.process.isAlive() || System.nanoTime() - worker.startedAt >= maxIdleNanos;
+                    if (stale) {
+                        retired.add(worker);
+                    }
+                    return stale;
+                });
+            }
+            retired.forEach(WarmRuntimePool.this::destroy);
+            if (!retired.isEmpty()) {
+                refill();
+            }
+        }
+
+        List<Worker> drain() {
+            synchronized (this) {
+                List<Worker> drained = new ArrayList<>(idle);
+                idle.clear();
+                return drained;
+            }
+        }
+    }
+
+    private final Path workRoot;
+    private final List<String> commandPrefix;
+    private final String outputLimit;
+    private final long cpuCeilingSeconds;
+    private final long maxIdleNanos;
+    private final Map<String, Path> bootstrapScripts = new HashMap<>();
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(daemon("crucible-warm-pool"));
+    private final ExecutorService stdinWriters = Executors.newCachedThreadPool(daemon("crucible-warm-pool-stdin"));
+    private final ScheduledExecutorService recycler =
+        Executors.newSingleThreadScheduledExecutor(daemon("crucible-warm-pool-recycler"));
+    private volatile boolean closed;
+
+    /**
+     * @param commandPrefix usage and sandbox commands every worker is wrapped in
+     * @param sizes workers kept per language; languages without a bootstrap are ignored
+     * @param cpuCeilingSeconds CPU limit of a worker as a whole; the bootstrap lowers it to the run's where it can
+     */
+    WarmRuntimePool(Path workRoot, List<String> commandPrefix, int outputLimitBytes, Map<String, Integer> sizes,
+                    long cpuCeilingSeconds, Duration maxIdle, MeterRegistry meterRegistry) throws IOException {
+        this.workRoot = workRoot;
+        this.commandPrefix = commandPrefix;
+        this.outputLimit = "--fsize=" + outputLimitBytes;
+        this.cpuCeilingSeconds = cpuCeilingSeconds;
+        this.maxIdleNanos = maxIdle.toNanos();
+
+        Path scripts = Files.createDirectories(workRoot.resolve("warm-bootstrap"));
+        sizes.forEach((language, size) -> {
+            Bootstrap bootstrap = BOOTSTRAPS.get(language);
+            if (bootstrap == null) {
+                logger.warn("No warm runtime for language '{}', its runs start cold", language);
+                return;
+            }
+            if (size <= 0) {
+                return;
+            }
+            try {
+                Path script = scripts.resolve(bootstrap.script());
+                Files.writeString(script, StreamUtils.copyToString(
+                    new ClassPathResource("judge/" + bootstrap.script()).getInputStream(), StandardCharsets.UTF_8));
+                bootstrapScripts.put(language, script);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to install warm bootstrap " + bootstrap.script(), e);
+            }
+            lanes.put(language, new Lane(language, size, meterRegistry));
+            logger.info("Keeping {} warm {} workers", size, language);
+        });
+        lanes.values().forEach(Lane::refill);
+        long recyclePeriodMillis = Math.max(maxIdle.toMillis() / 2, 1000);
+        recycler.scheduleWithFixedDelay(() -> lanes.values().forEach(Lane::recycleStale),
+            recyclePeriodMillis, recyclePeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether runs of the language can be served warm
+     */
+    boolean supports(String language) {
+        return lanes.containsKey(language);
+    }
+
+    /**
+     * Start the worker's run: send the limits, then the input, and close stdin. Written on
+     * another thread, since a program that doesn't read its input would block us.
+     */
+    void start(Worker worker, long cpuSeconds, long addressSpaceBytes, boolean limitAddressSpace, String input) {
+        String header = cpuSeconds + " " + addressSpaceBytes + " " + (limitAddressSpace ? 1 : 0) + "\n";
+        stdinWriters.execute(() -> {
+            try (OutputStream stdin = worker.process.getOutputStream()) {
+                stdin.write(header.getBytes(StandardCharsets.US_ASCII));
+                stdin.write((input != null ? input : "").getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // The program exited or was killed before reading all of its input
+                logger.debug("Stopped writing input to warm worker: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Name of the file the language's bootstrap runs
+     */
+    String entryFile(String language) {
+        return BOOTSTRAPS.get(language).entryFile();
+    }
+
+    /**
+     * An idle worker for the language, or null if there is none and the run has to start
+     * cold. The caller owns the worker and deletes its directory when done.
+     */
+    Worker take(String language) {
+        Lane lane = lanes.get(language);
+        return lane != null ? lane.take() : null;
+    }
+
+    private Worker launch(String language) throws IOException {
+        Bootstrap bootstrap = BOOTSTRAPS.get(language);
+        Path dir = Files.createTempDirectory(workRoot, "warm-" + language + "-");
+
+        List<String> command = new ArrayList<>(commandPrefix);
+        command.add("prlimit");
+        command.add("--cpu=" + cpuCeilingSeconds);
+        command.add(outputLimit);
+        command.add("--");
+        command.addAll(bootstrap.interpreter());
+        command.add(bootstrapScripts.get(language).toString());
+
+        try {
+            Process process = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectOutput(dir.resolve(".stdout").toFile())
+                .redirectError(dir.resolve(".stderr").toFile())
+                .start();
+            return new Worker(process, dir);
+        } catch (IOException e) {
+            FileSystemUtils.deleteRecursively(dir);
+            throw e;
+        }
+    }
+
+    private void destroy(Worker worker) {
+        worker.process.descendants().forEach(ProcessHandle::destroyForcibly);
+        worker.process.destroyForcibly();
+        try {
+            FileSystemUtils.deleteRecursively(worker.dir);
+        } catch (IOException e) {
+            logger.debug("Failed to delete warm worker dir {}: {}", worker.dir, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        recycler.shutdownNow();
+        launcher.shutdownNow();
+        stdinWriters.shutdownNow();
+        lanes.values().forEach(lane -> lane.drain().forEach(this::destroy));
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.crucible.platform.v1.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.crucible.platform.v1.judge.InMemoryJudgeQueue;
+import com.crucible.platform.v1.judge.JudgeQueue;
+import com.crucible.platform.v1.judge.RabbitJudgeQueue;
+import com.rabbitmq.client.ConnectionFactory;
+
+/**
+ * The judge queue. Only async mode queues submissions, so sync mode always gets the in-memory
+ * queue and never connects to RabbitMQ.
+ */
+@Configuration
+public class JudgeQueueConfig {
+
+    private static final String RABBITMQ_IN_USE =
+        "'${crucible.judge.mode}'.equalsIgnoreCase('async') and '${crucible.judge.queue}' == 'rabbitmq'";
+
+    @Bean
+    @ConditionalOnExpression(RABBITMQ_IN_USE)
+    public JudgeQueue rabbitJudgeQueue(
+            @Value("${crucible.rabbitmq.host}") String host,
+            @Value("${crucible.rabbitmq.port}") int port,
+            @Value("${crucible.rabbitmq.username}") String username,
+            @Value("${crucible.rabbitmq.password}") String password,
+            @Value("${crucible.rabbitmq.queue}") String queueName,
+            @Value("${crucible.judge.workers}") int workers) {
+        ConnectionFactory connectionFactory = new ConnectionFactory();
+        connectionFactory.setHost(host);
+        connectionFactory.setPort(port);
+        connectionFactory.setUsername(username);
+        connectionFactory.setPassword(password);
+        // Non-blocking IO on Netty, which replaced the deprecated NIO transport
+        connectionFactory.netty();
+        return new RabbitJudgeQueue(connectionFactory, queueName, workers);
+    }
+
+    @Bean
+    @ConditionalOnExpression("!(" + RABBITMQ_IN_USE + ")")
+    public JudgeQueue inMemoryJudgeQueue() {
+        return new InMemoryJudgeQueue();
+    }
+}
@@ -71,6 +71,7 @@ public class SecurityConfig {
         .authorizeExchange(exchanges -> exchanges
             .pathMatchers(
                 "/api/v1/health",
+                "/actuator/health",
                 "/api/v1/auth/login", // Handled by formLogin
                 "/api/v1/auth/logout", // Handled by logout
                 "/api/v1/auth/register", // Your custom controller
@@ -1,9 +1,18 @@
 package com.crucible.platform.v1.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
 @Configuration
 public class WebClientConfig {
 
@@ -11,4 +20,43 @@ public class WebClientConfig {
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
+
+    /**
+     * WebClient for the Piston executors: a dedicated keep-alive connection pool, so judge
+     * traffic neither competes with other outbound calls nor pays a TCP/TLS handshake per
+     * test case, plus connect and response timeouts. Pool usage is published to Micrometer
+     * as reactor.netty.connection.provider.* tagged name=piston; the pool is per executor node.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "crucible.judge.backend", havingValue = "piston", matchIfMissing = true)
+    public WebClient pistonWebClient(
+            WebClient.Builder webClientBuilder,
+            @Value("${crucible.piston.pool.max-connections}") int maxConnections,
+            @Value("${crucible.piston.pool.pending-acquire-max}") int pendingAcquireMax,
+            @Value("${crucible.piston.pool.pending-acquire-timeout}") Duration pendingAcquireTimeout,
+            @Value("${crucible.piston.pool.max-idle-time}") Duration maxIdleTime,
+            @Value("${crucible.piston.pool.max-life-time}") Duration maxLifeTime,
+            @Value("${crucible.piston.connect-timeout}") Duration connectTimeout,
+            @Value("${crucible.piston.response-timeout}") Duration responseTimeout) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("piston")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMax)
+            .pendingAcquireTimeout(pendingAcquireTimeout)
+            .maxIdleTime(maxIdleTime)
+            .maxLifeTime(maxLifeTime)
+            .evictInBackground(maxIdleTime)
+            .metrics(true)
+            .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .keepAlive(true)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            // Piston answers once the program finished, so this bounds compile + run time
+            .responseTimeout(responseTimeout);
+
+        return webClientBuilder.clone()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
 }
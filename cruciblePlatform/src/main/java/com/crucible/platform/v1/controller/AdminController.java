@@ -1,25 +1,35 @@
 package com.crucible.platform.v1.controller;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.WebSession;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import com.crucible.platform.v1.dto.ResponseEntity;
 import com.crucible.platform.v1.dto.admin.AlterAdminDto;
+import com.crucible.platform.v1.dto.admin.RejudgeProgress;
+import com.crucible.platform.v1.dto.admin.RejudgeRequest;
 import com.crucible.platform.v1.service.AdminService;
+import com.crucible.platform.v1.service.RejudgeService;
 
 @RestController
 @RequestMapping("/api/v1/admin")
 public class AdminController {
     
     private final AdminService adminService;
+    private final RejudgeService rejudgeService;
 
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, RejudgeService rejudgeService) {
         this.adminService = adminService;
+        this.rejudgeService = rejudgeService;
     }
     
     @PostMapping("")
@@ -31,4 +41,37 @@ public class AdminController {
     public Mono<ResponseEntity<Void>> deleteAdmin(@RequestBody AlterAdminDto dto, WebSession session) {
         return adminService.deleteAdmin(session, dto);
     }
+
+    @PostMapping("/rejudge")
+    public Mono<ResponseEntity<RejudgeProgress>> startRejudge(@RequestBody RejudgeRequest request, WebSession session) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return rejudgeService.startRejudge(userId, request);
+    }
+
+    @GetMapping("/rejudge/{jobId}")
+    public Mono<ResponseEntity<RejudgeProgress>> getRejudge(@PathVariable Long jobId, WebSession session) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return rejudgeService.getRejudge(userId, jobId);
+    }
+
+    @GetMapping(value = "/rejudge/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<RejudgeProgress>> streamRejudge(@PathVariable Long jobId, WebSession session) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return rejudgeService.streamRejudge(userId, jobId)
+                .map(progress -> ServerSentEvent.<RejudgeProgress>builder(progress)
+                        .event(progress.getStatus())
+                        .build());
+    }
+
+    @PostMapping("/rejudge/{jobId}/pause")
+    public Mono<ResponseEntity<RejudgeProgress>> pauseRejudge(@PathVariable Long jobId, WebSession session) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return rejudgeService.pauseRejudge(userId, jobId);
+    }
+
+    @PostMapping("/rejudge/{jobId}/resume")
+    public Mono<ResponseEntity<RejudgeProgress>> resumeRejudge(@PathVariable Long jobId, WebSession session) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return rejudgeService.resumeRejudge(userId, jobId);
+    }
 }
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.server.WebSession;
@@ -19,9 +20,12 @@ import com.crucible.platform.v1.dto.contest.UpdateContest;
 import com.crucible.platform.v1.dto.contest.ManageContestResponse;
 import com.crucible.platform.v1.dto.contest.ContestQuestionsResponse;
 import com.crucible.platform.v1.dto.contest.ContestLeaderboardResponse;
+import com.crucible.platform.v1.dto.contest.LeaderboardEntryDto;
+import com.crucible.platform.v1.dto.contest.LeaderboardEvent;
 import com.crucible.platform.v1.entity.Contest;
 import com.crucible.platform.v1.service.ContestService;
 
+import jakarta.validation.Valid;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 import java.util.List;
@@ -58,7 +62,7 @@ public class ContestController {
   }
 
   @PostMapping("")
-  public Mono<ResponseEntity<Contest>> createContest(WebSession session, @RequestBody CreateContest dto) {
+  public Mono<ResponseEntity<Contest>> createContest(WebSession session, @Valid @RequestBody CreateContest dto) {
     return contestService.createContest(session, dto);
   }
 
@@ -69,7 +73,7 @@ public class ContestController {
   }
 
   @PutMapping("/{contestId}")
-  public Mono<ResponseEntity<Contest>> updateContest(WebSession session, @PathVariable Long contestId, @RequestBody UpdateContest dto) {
+  public Mono<ResponseEntity<Contest>> updateContest(WebSession session, @PathVariable Long contestId, @Valid @RequestBody UpdateContest dto) {
     Long userId = (Long) session.getAttributes().get("userId");
     return contestService.updateContest(contestId, userId, dto);
   }
@@ -104,12 +108,26 @@ public class ContestController {
     return contestService.getContestLeaderboard(contestId, userId);
   }
 
+  @GetMapping("/{contestId}/leaderboard/standings")
+  public Mono<ResponseEntity<List<LeaderboardEntryDto>>> getStandings(WebSession session, @PathVariable Long contestId,
+      @RequestParam(defaultValue = "0") long offset, @RequestParam(defaultValue = "50") int limit) {
+    Long userId = (Long) session.getAttributes().get("userId");
+    return contestService.getStandings(contestId, userId, offset, limit);
+  }
+
+  @GetMapping("/{contestId}/leaderboard/me")
+  public Mono<ResponseEntity<LeaderboardEntryDto>> getMyStanding(WebSession session, @PathVariable Long contestId) {
+    Long userId = (Long) session.getAttributes().get("userId");
+    return contestService.getMyStanding(contestId, userId);
+  }
+
   @GetMapping(value = "/{contestId}/leaderboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-  public Flux<ServerSentEvent<ContestLeaderboardResponse>> streamContestLeaderboard(WebSession session, @PathVariable Long contestId) {
+  public Flux<ServerSentEvent<LeaderboardEvent>> streamContestLeaderboard(WebSession session, @PathVariable Long contestId) {
     Long userId = (Long) session.getAttributes().get("userId");
     return contestService.streamLeaderboard(contestId, userId)
-        .map(leaderboard -> ServerSentEvent.<ContestLeaderboardResponse>builder(leaderboard)
-            .event("leaderboard")
+        .map(event -> ServerSentEvent.<LeaderboardEvent>builder(event)
+            .id(String.valueOf(event.getSeq()))
+            .event(event.getType())
             .build());
   }
 
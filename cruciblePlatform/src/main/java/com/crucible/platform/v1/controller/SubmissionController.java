@@ -1,5 +1,9 @@
 package com.crucible.platform.v1.controller;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -7,11 +11,14 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.WebSession;
 
 import com.crucible.platform.v1.dto.ResponseEntity;
+import com.crucible.platform.v1.dto.submission.AdmissionStatus;
 import com.crucible.platform.v1.dto.submission.ContestSubmitCodeRequest;
+import com.crucible.platform.v1.dto.submission.SubmissionEvent;
 import com.crucible.platform.v1.dto.submission.SubmissionResponse;
 import com.crucible.platform.v1.dto.submission.SubmitCodeRequest;
 import com.crucible.platform.v1.service.SubmissionService;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -36,6 +43,19 @@ public class SubmissionController {
         return submissionService.submitCode(userId, request);
     }
 
+    /**
+     * Submit code for a regular (public) problem, streaming test case results as they finish
+     * POST /api/v1/submissions/submit/stream
+     */
+    @PostMapping(value = "/submit/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<SubmissionEvent>> streamSubmitCode(
+            WebSession session,
+            @RequestBody SubmitCodeRequest request) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return submissionService.streamSubmitCode(userId, request)
+                .map(this::toServerSentEvent);
+    }
+
     /**
      * Submit code for a contest problem
      * POST /api/v1/submissions/contest
@@ -47,4 +67,57 @@ public class SubmissionController {
         Long userId = (Long) session.getAttributes().get("userId");
         return submissionService.submitContestCode(userId, request);
     }
+
+    /**
+     * Submit code for a contest problem, streaming test case results as they finish
+     * POST /api/v1/submissions/contest/stream
+     */
+    @PostMapping(value = "/contest/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<SubmissionEvent>> streamSubmitContestCode(
+            WebSession session,
+            @RequestBody ContestSubmitCodeRequest request) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return submissionService.streamSubmitContestCode(userId, request)
+                .map(this::toServerSentEvent);
+    }
+
+    /**
+     * Current admission limits, judge load and rejection counts, e.g. to back off before submitting
+     * GET /api/v1/submissions/admission
+     */
+    @GetMapping("/admission")
+    public Mono<ResponseEntity<AdmissionStatus>> getAdmissionStatus() {
+        return submissionService.getAdmissionStatus();
+    }
+
+    /**
+     * Poll the status of a submission, e.g. one queued for async judging
+     * GET /api/v1/submissions/{submissionId}
+     */
+    @GetMapping("/{submissionId}")
+    public Mono<ResponseEntity<SubmissionResponse>> getSubmission(
+            WebSession session,
+            @PathVariable Long submissionId) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return submissionService.getSubmission(userId, submissionId);
+    }
+
+    /**
+     * Stream the judging of a submission: one test-case event per result, then a verdict event
+     * GET /api/v1/submissions/{submissionId}/stream
+     */
+    @GetMapping(value = "/{submissionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<SubmissionEvent>> streamSubmission(
+            WebSession session,
+            @PathVariable Long submissionId) {
+        Long userId = (Long) session.getAttributes().get("userId");
+        return submissionService.streamSubmission(userId, submissionId)
+                .map(this::toServerSentEvent);
+    }
+
+    private ServerSentEvent<SubmissionEvent> toServerSentEvent(SubmissionEvent event) {
+        return ServerSentEvent.<SubmissionEvent>builder(event)
+                .event(event.getType())
+                .build();
+    }
 }
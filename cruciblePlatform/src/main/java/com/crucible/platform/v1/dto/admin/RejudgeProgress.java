@@ -0,0 +1,24 @@
+package com.crucible.platform.v1.dto.admin;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RejudgeProgress {
+    private Long jobId;
+    private Long contestId;
+    private Long questionId;
+    private String status; // running | paused | completed | failed
+    private Integer totalSubmissions;
+    private Integer processedSubmissions;
+    private Integer changedVerdicts;
+    private Integer failedSubmissions;
+    private Long checkpointSubmissionId;
+    private String message;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,9 @@
+package com.crucible.platform.v1.dto.admin;
+
+import lombok.Data;
+
+@Data
+public class RejudgeRequest {
+    private Long contestId; // rejudge every question of the contest
+    private Long questionId; // or only this question; takes precedence over contestId
+}
@@ -0,0 +1,17 @@
+package com.crucible.platform.v1.dto.contest;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContestSolve {
+    private Long userId;
+    private Long questionId;
+    private LocalDateTime solvedAt; // First accepted submission of the question
+    private Integer points;
+}
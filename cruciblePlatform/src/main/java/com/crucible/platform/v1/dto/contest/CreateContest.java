@@ -2,6 +2,7 @@ package com.crucible.platform.v1.dto.contest;
 
 import java.time.LocalDateTime;
 
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,4 +17,6 @@ public class CreateContest {
     private String markdownDescription;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    @Pattern(regexp = "full|fail-fast", message = "Judging policy must be either full or fail-fast")
+    private String judgingPolicy;
 }
@@ -0,0 +1,25 @@
+package com.crucible.platform.v1.dto.contest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEvent {
+    public static final String SNAPSHOT = "leaderboard";
+    public static final String DELTA = "leaderboard-delta";
+
+    private String type; // leaderboard (full snapshot) or leaderboard-delta (changes since the previous seq)
+    private Long contestId;
+    private Long seq; // increases by one per update; a delta whose seq isn't the last one + 1 means updates were missed
+    private String contestName; // set for snapshot events
+    private List<LeaderboardEntryDto> leaderboard; // set for snapshot events
+    private List<LeaderboardEntryDto> entries; // set for delta events: new entrants and entries whose score changed
+    private Map<Long, Integer> ranks; // set for delta events: user id to new rank, for entries whose only change is their rank
+    private List<Long> removed; // set for delta events: users no longer on the leaderboard
+}
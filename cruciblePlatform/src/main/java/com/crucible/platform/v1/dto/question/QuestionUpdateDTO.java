@@ -2,6 +2,7 @@ package com.crucible.platform.v1.dto.question;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -21,4 +22,19 @@ public class QuestionUpdateDTO {
     @NotNull(message = "Points are required")
     @Positive(message = "Points must be a positive number")
     private Integer points;
+
+    @Pattern(regexp = "full|fail-fast", message = "Judging policy must be either full or fail-fast")
+    private String judgingPolicy;
+
+    @Pattern(regexp = "exact|tokens|float", message = "Checker must be one of exact, tokens or float")
+    private String checker;
+
+    @Positive(message = "Checker epsilon must be a positive number")
+    private Double checkerEpsilon;
+
+    @Positive(message = "Time limit must be a positive number")
+    private Integer timeLimitMs;
+
+    @Positive(message = "Memory limit must be a positive number")
+    private Integer memoryLimitMb;
 }
@@ -20,6 +20,8 @@ public class QuestionWithSamplesDto {
     private Long creatorId;
     private Long contestId;
     private Boolean isPublic;
+    private Integer timeLimitMs; // null means the platform default
+    private Integer memoryLimitMb;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<TestCaseDto> sampleTestCases;
@@ -32,6 +34,8 @@ public class QuestionWithSamplesDto {
         this.creatorId = question.getCreatorId();
         this.contestId = question.getContestId();
         this.isPublic = question.getIsPublic();
+        this.timeLimitMs = question.getTimeLimitMs();
+        this.memoryLimitMb = question.getMemoryLimitMb();
         this.createdAt = question.getCreatedAt();
         this.updatedAt = question.getUpdatedAt();
         this.sampleTestCases = sampleTestCases;
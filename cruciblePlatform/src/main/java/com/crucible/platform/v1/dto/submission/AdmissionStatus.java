@@ -0,0 +1,26 @@
+package com.crucible.platform.v1.dto.submission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdmissionStatus {
+    private Boolean enabled;
+    private Integer inFlightExecutions; // running or waiting for a slot on this node
+    private Long judgeBacklog; // submissions queued for the judge workers, last sample
+    private Limits runs;
+    private Limits submissions;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Limits {
+        private Integer maxInFlightExecutions; // 0 = no limit
+        private Long maxJudgeBacklog; // 0 = no limit
+        private Long retryAfterSeconds;
+        private Long rejected; // since this node started
+    }
+}
@@ -0,0 +1,18 @@
+package com.crucible.platform.v1.dto.submission;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CachedVerdict {
+    private String status;
+    private String output;
+    private Integer passedTestCases;
+    private Integer totalTestCases;
+    private List<TestCaseResult> testCaseResults;
+}
@@ -0,0 +1,12 @@
+package com.crucible.platform.v1.dto.submission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JudgeJob {
+    private Long submissionId; // The worker loads code, language and question from the persisted submission
+}
@@ -22,6 +22,10 @@ public class PistonExecuteResponse {
         private String output;
         private Integer code;
         private String signal;
+        private String status; // Piston only, e.g. "TO" when the run timed out
+        private Long wall_time; // ms; null if the executor did not measure it
+        private Long cpu_time; // ms, user + system
+        private Long memory; // peak RSS in bytes
     }
 
     @Data
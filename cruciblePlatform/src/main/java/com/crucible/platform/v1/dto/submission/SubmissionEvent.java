@@ -0,0 +1,21 @@
+package com.crucible.platform.v1.dto.submission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SubmissionEvent {
+    public static final String SUBMITTED = "submitted";
+    public static final String TEST_CASE = "test-case";
+    public static final String VERDICT = "verdict";
+    public static final String ERROR = "error";
+
+    private String type; // submitted, test-case, verdict (last event) or error (last event)
+    private Long submissionId;
+    private TestCaseResult testCaseResult; // set for test-case events
+    private SubmissionResponse verdict; // set for submitted and verdict events
+    private String message; // set for error events
+}
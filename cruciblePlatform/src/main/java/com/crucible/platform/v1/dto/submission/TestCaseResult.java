@@ -1,5 +1,7 @@
 package com.crucible.platform.v1.dto.submission;
 
+import com.crucible.platform.v1.entity.TestVerdict;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,4 +17,12 @@ public class TestCaseResult {
     private String actualOutput;
     private String errorMessage;
     private Boolean isSample; // true if this is a sample test case
+    private String mismatch; // first difference found by the question's checker, e.g. "Token 3 (line 2): expected '5', got '6'"
+    private Boolean skipped; // true if not executed because an earlier test case failed (fail-fast)
+    private TestVerdict verdict;
+    private Long runtimeMs; // wall time of the execution; null when not measured
+    private Long cpuTimeMs; // null when the executor does not report it
+    private Long memoryBytes; // peak RSS; null when the executor does not report it
+    private Integer exitCode;
+    private Boolean truncated; // true if input, expected or actual output was cut to crucible.judge.results.preview-bytes
 }
@@ -27,6 +27,7 @@ public class Contest {
   private Long creatorId;
   private LocalDateTime startTime;
   private LocalDateTime endTime;
+  private String judgingPolicy;
 
   @CreatedDate
   private LocalDateTime createdAt;
@@ -25,6 +25,11 @@ public class Question {
     private Long creatorId;
     private Long contestId;
     private Boolean isPublic;
+    private String judgingPolicy;
+    private String checker;
+    private Double checkerEpsilon;
+    private Integer timeLimitMs; // per test case; null: crucible.judge.limits.time-ms
+    private Integer memoryLimitMb; // null: crucible.judge.limits.memory-mb
 
     @CreatedDate
     private LocalDateTime createdAt;
@@ -0,0 +1,49 @@
+package com.crucible.platform.v1.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Table("rejudge_jobs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RejudgeJob {
+
+    public static final String RUNNING = "running";
+    public static final String PAUSED = "paused";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+
+    @Id
+    private Long id;
+
+    private Long contestId;
+    private Long questionId; // null when the whole contest is rejudged
+    private Long requestedBy;
+    private String status;
+
+    private Long maxSubmissionId; // submissions after this one were judged against the current test set
+    private Long checkpointSubmissionId; // every submission up to this one has been regraded
+    private Integer totalSubmissions;
+    private Integer processedSubmissions;
+    private Integer changedVerdicts;
+    private Integer failedSubmissions;
+    private String message;
+
+    private String owner; // run currently driving the job
+    private LocalDateTime heartbeatAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
@@ -27,7 +27,13 @@ public class Submission {
     private String language;
     private String status; // e.g., "Pending", "Accepted", "Wrong Answer", TLE, etc.
 
-    private String output; // Optional field because its not present at creation - can be null
+    private String output; // Report of submissions graded before per-test results were stored in submission_results
+    private Integer passedTestCases; // null until graded
+    private Integer totalTestCases;
+
+    private String leaseOwner; // Judge worker grading the submission, async mode only
+    private LocalDateTime leaseExpiresAt;
+    private Integer judgeAttempts = 0; // Leases taken so far
 
     @CreatedDate
     private LocalDateTime createdAt;
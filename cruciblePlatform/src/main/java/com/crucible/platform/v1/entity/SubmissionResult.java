@@ -0,0 +1,34 @@
+package com.crucible.platform.v1.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Table("submission_results")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SubmissionResult {
+
+    @Id
+    private Long id;
+
+    private Long submissionId;
+    private Integer testCaseNumber; // 1-based, in test case order
+    private TestVerdict verdict;
+    private Boolean isSample;
+    private Long runtimeMs; // wall time; null when not measured
+    private Long cpuTimeMs;
+    private Long memoryBytes; // peak RSS
+    private Integer exitCode;
+
+    // Previews capped at crucible.judge.results.preview-bytes
+    private String inputPreview;
+    private String expectedOutputPreview;
+    private String actualOutputPreview;
+    private Boolean outputTruncated;
+    private String message;
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Table;
 
 import lombok.AllArgsConstructor;
@@ -19,8 +20,11 @@ public class TestCase{
     @Id
     private Long id;
     private Long questionId;
-    private String input;
-    private String expectedOutput;
+    // Test data lives in the blob store; only its hash and size are stored with the row
+    private String inputHash;
+    private Long inputSize;
+    private String expectedOutputHash;
+    private Long expectedOutputSize;
     private Boolean isSample;
 
     @CreatedDate
@@ -28,4 +32,10 @@ public class TestCase{
 
     @LastModifiedDate
     private LocalDateTime updatedAt;
+
+    // Loaded from the blob store on demand, e.g. for API responses
+    @Transient
+    private String input;
+    @Transient
+    private String expectedOutput;
 }
\ No newline at end of file
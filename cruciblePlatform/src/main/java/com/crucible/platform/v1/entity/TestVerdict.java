@@ -0,0 +1,15 @@
+package com.crucible.platform.v1.entity;
+
+/**
+ * Outcome of one test case of a submission
+ */
+public enum TestVerdict {
+    PASSED,
+    WRONG_ANSWER,
+    RUNTIME_ERROR, // non-zero exit code or killed by a signal
+    TIME_LIMIT_EXCEEDED,
+    MEMORY_LIMIT_EXCEEDED,
+    COMPILATION_ERROR,
+    EXECUTION_ERROR, // the executor failed, not the code
+    SKIPPED // not executed because an earlier test case failed (fail-fast)
+}
@@ -0,0 +1,7 @@
+package com.crucible.platform.v1.exceptions;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
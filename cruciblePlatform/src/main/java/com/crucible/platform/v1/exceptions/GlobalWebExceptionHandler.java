@@ -3,9 +3,11 @@ package com.crucible.platform.v1.exceptions;
 import com.crucible.platform.v1.dto.ResponseEntity;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import reactor.core.publisher.Mono;
 
 @RestControllerAdvice
@@ -21,6 +23,27 @@ public class GlobalWebExceptionHandler {
         return createErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles BadRequestException (HTTP 400).
+     */
+    @ExceptionHandler(BadRequestException.class)
+    public Mono<org.springframework.http.ResponseEntity<ResponseEntity<Void>>> handleBadRequest(BadRequestException ex) {
+        log.warn("Bad request: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles request bodies failing @Valid validation (HTTP 400), with the first violation's message.
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public Mono<org.springframework.http.ResponseEntity<ResponseEntity<Void>>> handleValidation(WebExchangeBindException ex) {
+        String message = ex.getFieldErrors().isEmpty()
+                ? "Invalid request"
+                : ex.getFieldErrors().get(0).getDefaultMessage();
+        log.warn("Invalid request: {}", message);
+        return createErrorResponse(message, HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Handles UnauthorizedAccessException (HTTP 401).
      */
@@ -39,6 +62,17 @@ public class GlobalWebExceptionHandler {
         return createErrorResponse(ex.getMessage(), HttpStatus.FORBIDDEN);
     }
 
+    /**
+     * Handles OverloadedException (HTTP 429 / 503) with a Retry-After hint.
+     */
+    @ExceptionHandler(OverloadedException.class)
+    public Mono<org.springframework.http.ResponseEntity<ResponseEntity<Void>>> handleOverloaded(OverloadedException ex) {
+        log.warn("Request shed: {}", ex.getMessage());
+        return Mono.just(org.springframework.http.ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(new ResponseEntity<>(null, ex.getMessage())));
+    }
+
     /**
      * Handles specific InternalServerErrorException (HTTP 500).
      */
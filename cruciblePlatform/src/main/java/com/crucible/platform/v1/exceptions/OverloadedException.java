@@ -0,0 +1,28 @@
+package com.crucible.platform.v1.exceptions;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Request shed by admission control; answered with {@code status} and a Retry-After header
+ */
+public class OverloadedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final Duration retryAfter;
+
+    public OverloadedException(String message, HttpStatus status, Duration retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
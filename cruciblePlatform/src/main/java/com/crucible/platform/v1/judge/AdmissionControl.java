@@ -0,0 +1,181 @@
+package com.crucible.platform.v1.judge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.crucible.platform.v1.dto.submission.AdmissionStatus;
+import com.crucible.platform.v1.exceptions.OverloadedException;
+
+import java.time.Duration;
+
+/**
+ * Sheds runs and submissions up front once the judge is saturated, instead of letting them
+ * queue until clients time out and retry into an even longer queue.
+ *
+ * Two signals are checked: executions running or waiting for a slot on this node, and the
+ * backlog of submissions queued for the judge workers, sampled every
+ * {@code backlogSampleInterval} in async mode. Runs have their own, normally lower,
+ * thresholds than submissions, so that optional work is shed first. A shed run is answered
+ * 429 and a shed submission 503, both with a Retry-After hint. A threshold of 0 disables
+ * that check.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private final ExecutionLimiter executionLimiter;
+    private final JudgeQueue judgeQueue;
+    private final boolean enabled;
+    private final boolean asyncJudging;
+    private final Duration backlogSampleInterval;
+    private final Threshold runs;
+    private final Threshold submissions;
+
+    private volatile long judgeBacklog;
+    private Disposable backlogSampler;
+
+    public AdmissionControl(
+            ExecutionLimiter executionLimiter,
+            JudgeQueue judgeQueue,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.judge.mode}") String judgeMode,
+            @Value("${crucible.admission.enabled}") boolean enabled,
+            @Value("${crucible.admission.backlog-sample-interval}") Duration backlogSampleInterval,
+            @Value("${crucible.admission.runs.max-in-flight}") int runMaxInFlight,
+            @Value("${crucible.admission.runs.max-backlog}") long runMaxBacklog,
+            @Value("${crucible.admission.runs.retry-after}") Duration runRetryAfter,
+            @Value("${crucible.admission.submissions.max-in-flight}") int submissionMaxInFlight,
+            @Value("${crucible.admission.submissions.max-backlog}") long submissionMaxBacklog,
+            @Value("${crucible.admission.submissions.retry-after}") Duration submissionRetryAfter) {
+        this.executionLimiter = executionLimiter;
+        this.judgeQueue = judgeQueue;
+        this.enabled = enabled;
+        this.asyncJudging = "async".equalsIgnoreCase(judgeMode);
+        this.backlogSampleInterval = backlogSampleInterval;
+        this.runs = new Threshold("run", runMaxInFlight, runMaxBacklog, runRetryAfter,
+            HttpStatus.TOO_MANY_REQUESTS, meterRegistry);
+        this.submissions = new Threshold("submission", submissionMaxInFlight, submissionMaxBacklog,
+            submissionRetryAfter, HttpStatus.SERVICE_UNAVAILABLE, meterRegistry);
+
+        Gauge.builder("crucible.admission.in-flight", this, AdmissionControl::inFlight)
+            .description("Executions running or waiting for a slot on this node")
+            .register(meterRegistry);
+        Gauge.builder("crucible.admission.judge-backlog", this, control -> control.judgeBacklog)
+            .description("Submissions queued for the judge workers, as last sampled")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Thresholds of one kind of request and its rejection counter
+     */
+    private static class Threshold {
+
+        final String kind;
+        final int maxInFlight;
+        final long maxBacklog;
+        final Duration retryAfter;
+        final HttpStatus status;
+        final Counter rejected;
+
+        Threshold(String kind, int maxInFlight, long maxBacklog, Duration retryAfter, HttpStatus status,
+                  MeterRegistry meterRegistry) {
+            this.kind = kind;
+            this.maxInFlight = maxInFlight;
+            this.maxBacklog = maxBacklog;
+            this.retryAfter = retryAfter;
+            this.status = status;
+            this.rejected = Counter.builder("crucible.admission.rejected")
+                .description("Requests shed by admission control")
+                .tag("kind", kind)
+                .register(meterRegistry);
+            Gauge.builder("crucible.admission.limit", () -> maxInFlight)
+                .description("Admission threshold; 0 means no limit")
+                .tags("kind", kind, "signal", "in-flight")
+                .register(meterRegistry);
+            Gauge.builder("crucible.admission.limit", () -> maxBacklog)
+                .description("Admission threshold; 0 means no limit")
+                .tags("kind", kind, "signal", "judge-backlog")
+                .register(meterRegistry);
+        }
+
+        AdmissionStatus.Limits toLimits() {
+            return new AdmissionStatus.Limits(maxInFlight, maxBacklog, retryAfter.toSeconds(),
+                (long) rejected.count());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBacklogSampling() {
+        if (!enabled || !asyncJudging) {
+            return;
+        }
+        backlogSampler = Flux.interval(Duration.ZERO, backlogSampleInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> judgeQueue.depth()
+                .timeout(backlogSampleInterval)
+                .onErrorResume(e -> {
+                    // Keep judging on the last known backlog rather than rejecting or admitting everything
+                    logger.debug("Failed to sample the judge backlog: {}", e.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe(depth -> judgeBacklog = depth);
+    }
+
+    @PreDestroy
+    public void stopBacklogSampling() {
+        if (backlogSampler != null) {
+            backlogSampler.dispose();
+        }
+    }
+
+    /**
+     * Completes empty if the run or submission may go ahead, errors with
+     * {@link OverloadedException} if it is shed
+     */
+    public Mono<Void> admit(boolean isRun) {
+        return Mono.defer(() -> {
+            if (!enabled) {
+                return Mono.empty();
+            }
+            Threshold threshold = isRun ? runs : submissions;
+            int inFlight = inFlight();
+            long backlog = judgeBacklog;
+            boolean overInFlight = threshold.maxInFlight > 0 && inFlight >= threshold.maxInFlight;
+            boolean overBacklog = threshold.maxBacklog > 0 && backlog >= threshold.maxBacklog;
+            if (!overInFlight && !overBacklog) {
+                return Mono.empty();
+            }
+            threshold.rejected.increment();
+            logger.debug("Shedding {}: {} executions in flight, judge backlog {}", threshold.kind, inFlight, backlog);
+            return Mono.error(new OverloadedException("The judge is overloaded, please retry your " + threshold.kind
+                + " in " + threshold.retryAfter.toSeconds() + " seconds", threshold.status, threshold.retryAfter));
+        });
+    }
+
+    public AdmissionStatus status() {
+        return new AdmissionStatus(enabled, inFlight(), judgeBacklog, runs.toLimits(), submissions.toLimits());
+    }
+
+    /**
+     * Executions running or waiting on this node. Waiting rejudges are left out: they only get
+     * slots nobody else wants, so they never delay live traffic.
+     */
+    private int inFlight() {
+        return executionLimiter.getRunning() + executionLimiter.getQueued()
+            - executionLimiter.getQueued(ExecutionPriority.REJUDGE);
+    }
+}
@@ -0,0 +1,47 @@
+package com.crucible.platform.v1.judge;
+
+/**
+ * Outcome of a {@link Checker}. On a mismatch, {@code message} locates the first difference.
+ */
+public final class CheckResult {
+
+    private static final CheckResult ACCEPTED = new CheckResult(true, null);
+    private static final int MAX_SHOWN_LENGTH = 32;
+
+    private final boolean passed;
+    private final String message;
+
+    private CheckResult(boolean passed, String message) {
+        this.passed = passed;
+        this.message = message;
+    }
+
+    public static CheckResult accepted() {
+        return ACCEPTED;
+    }
+
+    public static CheckResult mismatch(String message) {
+        return new CheckResult(false, message);
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Quote a token or fragment of an output for a mismatch message, shortened if long
+     */
+    static String shown(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return "end of output";
+        }
+        if (end - start > MAX_SHOWN_LENGTH) {
+            return "'" + text.subSequence(start, start + MAX_SHOWN_LENGTH) + "...'";
+        }
+        return "'" + text.subSequence(start, end) + "'";
+    }
+}
@@ -0,0 +1,36 @@
+package com.crucible.platform.v1.judge;
+
+import com.crucible.platform.v1.entity.Question;
+
+/**
+ * Decides whether a program's output is an accepted answer for a test case.
+ *
+ * Implementations scan both outputs in place; they never build trimmed or split copies, so
+ * multi-megabyte outputs are compared in one pass and the scan stops at the first mismatch.
+ */
+public interface Checker {
+
+    double DEFAULT_EPSILON = 1e-6;
+
+    CheckResult check(CharSequence expected, CharSequence actual);
+
+    /**
+     * Checker and settings, e.g. {@code float(1.0E-6)}; part of verdict cache keys
+     */
+    String name();
+
+    /**
+     * The checker configured on a question: {@code exact} (default, surrounding whitespace
+     * ignored), {@code tokens} (any run of whitespace equals any other) or {@code float}
+     * (tokens, numbers equal within an absolute or relative epsilon)
+     */
+    static Checker forQuestion(Question question) {
+        String mode = question.getChecker() == null ? "exact" : question.getChecker().toLowerCase();
+        return switch (mode) {
+            case "tokens" -> new TokenChecker(null);
+            case "float" -> new TokenChecker(question.getCheckerEpsilon() != null
+                ? question.getCheckerEpsilon() : DEFAULT_EPSILON);
+            default -> ExactChecker.INSTANCE;
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.crucible.platform.v1.judge;
+
+/**
+ * Character-exact comparison of both outputs with leading and trailing whitespace ignored,
+ * i.e. {@code actual.trim().equals(expected.trim())} without the copies.
+ */
+public class ExactChecker implements Checker {
+
+    public static final ExactChecker INSTANCE = new ExactChecker();
+
+    @Override
+    public CheckResult check(CharSequence expected, CharSequence actual) {
+        int expectedStart = skipLeading(expected);
+        int expectedEnd = skipTrailing(expected, expectedStart);
+        int actualStart = skipLeading(actual);
+        int actualEnd = skipTrailing(actual, actualStart);
+
+        int line = 1;
+        int column = 1;
+        int i = expectedStart;
+        int j = actualStart;
+        while (i < expectedEnd && j < actualEnd) {
+            char c = expected.charAt(i);
+            if (c != actual.charAt(j)) {
+                return mismatch(expected, i, expectedEnd, actual, j, actualEnd, line, column);
+            }
+            if (c == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+            i++;
+            j++;
+        }
+        if (i < expectedEnd || j < actualEnd) {
+            return mismatch(expected, i, expectedEnd, actual, j, actualEnd, line, column);
+        }
+        return CheckResult.accepted();
+    }
+
+    @Override
+    public String name() {
+        return "exact";
+    }
+
+    private static CheckResult mismatch(CharSequence expected, int i, int expectedEnd,
+                                        CharSequence actual, int j, int actualEnd, int line, int column) {
+        return CheckResult.mismatch("Line " + line + ", column " + column + ": expected "
+            + shownLine(expected, i, expectedEnd) + ", got " + shownLine(actual, j, actualEnd));
+    }
+
+    // The rest of the line from the first difference, which may be the line break itself
+    private static String shownLine(CharSequence text, int from, int end) {
+        if (from < end && text.charAt(from) == '\n') {
+            return "end of line";
+        }
+        return CheckResult.shown(text, from, lineEnd(text, from, end));
+    }
+
+    private static int lineEnd(CharSequence text, int from, int end) {
+        int i = from;
+        while (i < end && text.charAt(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    // Same notion of whitespace as String.trim()
+    private static int skipLeading(CharSequence text) {
+        int i = 0;
+        while (i < text.length() && text.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipTrailing(CharSequence text, int start) {
+        int i = text.length();
+        while (i > start && text.charAt(i - 1) <= ' ') {
+            i--;
+        }
+        return i;
+    }
+}
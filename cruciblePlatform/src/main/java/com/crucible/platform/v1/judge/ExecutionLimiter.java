@@ -0,0 +1,296 @@
+package com.crucible.platform.v1.judge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Node-wide cap on in-flight executions, with a separate budget per language so that a
+ * wave of slow C++ submissions cannot starve Python. Cancelling a waiting or running
+ * execution frees its slot.
+ *
+ * Executions beyond the budget wait, and a freed slot goes to the highest
+ * {@link ExecutionPriority} with anything waiting: contest submissions before contest runs
+ * before practice. Within a class, slots are shared fairly between users by weighted fair
+ * queuing: every user's executions are tagged with a virtual finish time that grows with the
+ * cost of what the user already queued, and the smallest tag goes first. A user who queues a
+ * hundred executions therefore gets interleaved with everyone else instead of running ahead
+ * of them.
+ *
+ * Budgets come from {@code crucible.judge.concurrency.languages}; languages without an
+ * entry share one lane limited by {@code crucible.judge.concurrency.default}.
+ */
+@Component
+public class ExecutionLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionLimiter.class);
+
+    private static final String SHARED_LANE = "*";
+
+    private final int defaultLimit;
+    private final Map<String, Integer> languageLimits;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<ExecutionPriority, AtomicInteger> queued = new EnumMap<>(ExecutionPriority.class);
+    private final Map<ExecutionPriority, Timer> waitTimers = new EnumMap<>(ExecutionPriority.class);
+    private final AtomicInteger running = new AtomicInteger();
+
+    public ExecutionLimiter(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.judge.concurrency.default}") int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+        this.languageLimits = Binder.get(environment)
+            .bind("crucible.judge.concurrency.languages", Bindable.mapOf(String.class, Integer.class))
+            .orElse(Map.of());
+
+        for (ExecutionPriority priority : ExecutionPriority.values()) {
+            AtomicInteger depth = new AtomicInteger();
+            queued.put(priority, depth);
+            Gauge.builder("crucible.judge.scheduler.queue-depth", depth, AtomicInteger::get)
+                .description("Executions waiting for a slot")
+                .tag("class", priority.tag())
+                .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("crucible.judge.scheduler.wait")
+                .description("Time executions waited for a slot")
+                .tag("class", priority.tag())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Who an execution runs for: its scheduling class and the user it is shared fairly with
+     */
+    public record Ticket(ExecutionPriority priority, Long userId) {
+    }
+
+    /**
+     * Executions holding a slot on this node, across all languages
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Executions waiting for a slot on this node, across all languages and classes
+     */
+    public int getQueued() {
+        return queued.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    /**
+     * Executions of one class waiting for a slot on this node, across all languages
+     */
+    public int getQueued(ExecutionPriority priority) {
+        return queued.get(priority).get();
+    }
+
+    /**
+     * Run an execution once the language has a free slot
+     */
+    public <T> Mono<T> run(String language, Ticket ticket, Mono<T> execution) {
+        return run(language, ticket, 1, execution);
+    }
+
+    /**
+     * Run an execution once the language has a free slot. {@code cost} is the execution's
+     * weight in the fair share of its user, e.g. the number of inputs of a batch execution.
+     */
+    public <T> Mono<T> run(String language, Ticket ticket, int cost, Mono<T> execution) {
+        String key = languageLimits.containsKey(language) ? language : SHARED_LANE;
+        return lanes.computeIfAbsent(key, this::newLane).submit(ticket, Math.max(cost, 1), execution);
+    }
+
+    private Lane newLane(String key) {
+        int limit = languageLimits.getOrDefault(key, defaultLimit);
+        logger.info("Execution budget for language '{}': {} concurrent executions", key, limit);
+        return new Lane(limit);
+    }
+
+    private static class Task {
+
+        final ExecutionPriority priority;
+        final Long userId;
+        final int cost;
+        final long sequence;
+        final long queuedAt = System.nanoTime();
+        final Supplier<Disposable> start;
+
+        double startTag;
+        double finishTag;
+        // Guarded by the lane
+        boolean started;
+        boolean cancelled;
+        Disposable running;
+
+        Task(Ticket ticket, int cost, long sequence, Supplier<Disposable> start) {
+            this.priority = ticket.priority();
+            this.userId = ticket.userId();
+            this.cost = cost;
+            this.sequence = sequence;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Start-time fair queue of one scheduling class. The virtual time is the start tag of the
+     * last task dequeued; a user who was idle starts again from it rather than from an old,
+     * smaller tag, so idling does not bank credit.
+     */
+    private static class FairQueue {
+
+        private final PriorityQueue<Task> tasks = new PriorityQueue<>(
+            Comparator.comparingDouble((Task task) -> task.finishTag).thenComparingLong(task -> task.sequence));
+        private final Map<Long, Double> lastFinish = new HashMap<>();
+        private double virtualTime;
+
+        void offer(Task task) {
+            task.startTag = Math.max(virtualTime, lastFinish.getOrDefault(task.userId, 0.0));
+            task.finishTag = task.startTag + task.cost;
+            lastFinish.put(task.userId, task.finishTag);
+            tasks.add(task);
+        }
+
+        Task poll() {
+            Task task = tasks.poll();
+            if (task != null) {
+                virtualTime = task.startTag;
+            }
+            if (tasks.isEmpty()) {
+                lastFinish.clear();
+            } else if (lastFinish.size() > 2 * tasks.size() + 1024) {
+                // Users whose tags the virtual time has passed are back to a clean start anyway
+                lastFinish.values().removeIf(finish -> finish <= virtualTime);
+            }
+            return task;
+        }
+
+        boolean remove(Task task) {
+            return tasks.remove(task);
+        }
+    }
+
+    private class Lane {
+
+        private final int limit;
+        private final Map<ExecutionPriority, FairQueue> queues = new EnumMap<>(ExecutionPriority.class);
+        private int active;
+        private long sequence;
+
+        Lane(int limit) {
+            this.limit = limit;
+            for (ExecutionPriority priority : ExecutionPriority.values()) {
+                queues.put(priority, new FairQueue());
+            }
+        }
+
+        <T> Mono<T> submit(Ticket ticket, int cost, Mono<T> execution) {
+            return Mono.create(sink -> {
+                Task task;
+                synchronized (this) {
+                    task = new Task(ticket, cost, sequence++, () -> execution
+                        .doFinally(signal -> release())
+                        .subscribe(sink::success, sink::error, sink::success));
+                }
+                sink.onCancel(() -> cancel(task));
+                enqueue(task);
+            });
+        }
+
+        private void enqueue(Task task) {
+            List<Task> ready;
+            synchronized (this) {
+                queues.get(task.priority).offer(task);
+                queued.get(task.priority).incrementAndGet();
+                ready = takeReady();
+            }
+            ready.forEach(this::start);
+        }
+
+        private void release() {
+            List<Task> ready;
+            synchronized (this) {
+                active--;
+                running.decrementAndGet();
+                ready = takeReady();
+            }
+            ready.forEach(this::start);
+        }
+
+        private void cancel(Task task) {
+            Disposable toDispose;
+            synchronized (this) {
+                task.cancelled = true;
+                if (!task.started) {
+                    if (queues.get(task.priority).remove(task)) {
+                        queued.get(task.priority).decrementAndGet();
+                    }
+                    return;
+                }
+                toDispose = task.running;
+            }
+            // Disposing ends the execution, whose doFinally gives the slot back
+            if (toDispose != null) {
+                toDispose.dispose();
+            }
+        }
+
+        /**
+         * Dequeue as many tasks as there are free slots, highest class first. Called with the
+         * lane locked; the tasks are started after the lock is released.
+         */
+        private List<Task> takeReady() {
+            List<Task> ready = new ArrayList<>();
+            for (ExecutionPriority priority : ExecutionPriority.values()) {
+                FairQueue queue = queues.get(priority);
+                while (active < limit) {
+                    Task task = queue.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    queued.get(priority).decrementAndGet();
+                    task.started = true;
+                    active++;
+                    running.incrementAndGet();
+                    ready.add(task);
+                }
+            }
+            return ready;
+        }
+
+        private void start(Task task) {
+            waitTimers.get(task.priority).record(System.nanoTime() - task.queuedAt, TimeUnit.NANOSECONDS);
+            Disposable subscription = task.start.get();
+            boolean cancelled;
+            synchronized (this) {
+                task.running = subscription;
+                cancelled = task.cancelled;
+            }
+            if (cancelled) {
+                subscription.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.crucible.platform.v1.judge;
+
+import com.crucible.platform.v1.dto.submission.PistonExecuteResponse;
+import com.crucible.platform.v1.entity.Question;
+import com.crucible.platform.v1.entity.TestVerdict;
+
+import java.util.Set;
+
+/**
+ * Time and memory a program may use per test case, and the verdicts for going over them
+ */
+public record ExecutionLimits(int timeLimitMs, int memoryLimitMb) {
+
+    // Signals a run gets for running out of time: the CPU rlimit, and the batch harness's timer
+    private static final Set<String> TIME_SIGNALS = Set.of("SIGXCPU", "SIGALRM");
+
+    // Piston languages that run under an address space limit. The JVM, V8 and Go reserve far
+    // more address space than they use and fail to start under one.
+    private static final Set<String> ADDRESS_SPACE_LIMITED = Set.of("c", "cpp", "python", "rust", "ruby", "php");
+
+    /**
+     * The limits configured on a question, falling back to the given defaults. The time limit
+     * is capped at {@code maxTimeLimitMs}, the executor's run timeout cap, beyond which the
+     * executor would kill the run before the limit is reached.
+     */
+    public static ExecutionLimits forQuestion(Question question, int defaultTimeLimitMs, int defaultMemoryLimitMb,
+                                              int maxTimeLimitMs) {
+        int timeLimitMs = question.getTimeLimitMs() != null ? question.getTimeLimitMs() : defaultTimeLimitMs;
+        return new ExecutionLimits(
+            Math.min(timeLimitMs, maxTimeLimitMs),
+            question.getMemoryLimitMb() != null ? question.getMemoryLimitMb() : defaultMemoryLimitMb);
+    }
+
+    public long memoryLimitBytes() {
+        return memoryLimitMb * 1024L * 1024L;
+    }
+
+    /**
+     * The run memory limit to send the executor, which enforces it as an address space limit,
+     * or -1 for none. Runs of other languages are held to the limit by their measured peak
+     * memory in {@link #failure}.
+     */
+    public long executorMemoryLimitBytes(String pistonLanguage) {
+        return ADDRESS_SPACE_LIMITED.contains(pistonLanguage) ? memoryLimitBytes() : -1L;
+    }
+
+    /**
+     * Part of verdict cache keys, e.g. {@code 2000ms/256mb}
+     */
+    public String name() {
+        return timeLimitMs + "ms/" + memoryLimitMb + "mb";
+    }
+
+    /**
+     * Why a run did not complete normally within the limits, or null if it did and its output
+     * is up to the checker. CPU time decides a time limit where the executor measures it; wall
+     * time only counts for runs that were killed, since it includes the runtime's startup.
+     */
+    public TestVerdict failure(PistonExecuteResponse response) {
+        if (response.getCompile() != null && response.getCompile().getCode() != null
+                && response.getCompile().getCode() != 0) {
+            return TestVerdict.COMPILATION_ERROR;
+        }
+        PistonExecuteResponse.RunResult run = response.getRun();
+        if (run == null || run.getOutput() == null) {
+            return TestVerdict.EXECUTION_ERROR;
+        }
+        if (run.getMemory() != null && run.getMemory() > memoryLimitBytes()) {
+            return TestVerdict.MEMORY_LIMIT_EXCEEDED;
+        }
+        boolean killed = run.getSignal() != null;
+        if ("TO".equals(run.getStatus())
+                || TIME_SIGNALS.contains(run.getSignal())
+                || (run.getCpu_time() != null && run.getCpu_time() > timeLimitMs)
+                || (killed && run.getWall_time() != null && run.getWall_time() >= timeLimitMs)) {
+            return TestVerdict.TIME_LIMIT_EXCEEDED;
+        }
+        if (killed || (run.getCode() != null && run.getCode() != 0)) {
+            return TestVerdict.RUNTIME_ERROR;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.crucible.platform.v1.judge;
+
+/**
+ * Scheduling classes of executions, highest priority first. A waiting execution of a higher
+ * class always starts before one of a lower class.
+ */
+public enum ExecutionPriority {
+
+    CONTEST_SUBMIT("contest-submit"),
+    CONTEST_RUN("contest-run"),
+    PRACTICE("practice"),
+    // Bulk regrading after a test set fix; only uses slots nobody else is waiting for
+    REJUDGE("rejudge");
+
+    private final String tag;
+
+    ExecutionPriority(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Name used as the metrics tag
+     */
+    public String tag() {
+        return tag;
+    }
+
+    public static ExecutionPriority of(Long contestId, boolean isRun) {
+        if (contestId == null) {
+            return PRACTICE;
+        }
+        return isRun ? CONTEST_RUN : CONTEST_SUBMIT;
+    }
+}
@@ -0,0 +1,58 @@
+package com.crucible.platform.v1.judge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.crucible.platform.v1.dto.submission.JudgeJob;
+import com.crucible.platform.v1.exceptions.InternalServerErrorException;
+
+/**
+ * Single-node stand-in for the RabbitMQ queue, meant for local development and tests.
+ * Jobs live only in memory, so anything still queued is lost on shutdown.
+ */
+public class InMemoryJudgeQueue implements JudgeQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryJudgeQueue.class);
+
+    private final Sinks.Many<JudgeJob> sink = Sinks.many().unicast().onBackpressureBuffer();
+    private final AtomicLong pending = new AtomicLong();
+
+    @Override
+    public Mono<Void> publish(JudgeJob job) {
+        return Mono.fromRunnable(() -> emit(job));
+    }
+
+    @Override
+    public Flux<JudgeDelivery> receive() {
+        return sink.asFlux()
+            .doOnNext(job -> pending.decrementAndGet())
+            .map(job -> new JudgeDelivery(job, () -> { }, requeue -> {
+                if (requeue) {
+                    emit(job);
+                }
+            }));
+    }
+
+    @Override
+    public Mono<Long> depth() {
+        return Mono.fromSupplier(pending::get);
+    }
+
+    private void emit(JudgeJob job) {
+        // Sinks.Many requires non-concurrent tryEmitNext calls and submissions arrive in parallel
+        synchronized (sink) {
+            pending.incrementAndGet();
+            Sinks.EmitResult result = sink.tryEmitNext(job);
+            if (result.isFailure()) {
+                pending.decrementAndGet();
+                logger.error("Failed to enqueue judge job for submission {}: {}", job.getSubmissionId(), result);
+                throw new InternalServerErrorException("Failed to queue submission for judging");
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.crucible.platform.v1.judge;
+
+import java.util.function.Consumer;
+
+import com.crucible.platform.v1.dto.submission.JudgeJob;
+
+/**
+ * A judge job handed to a worker together with its acknowledgement callbacks.
+ */
+public class JudgeDelivery {
+
+    private final JudgeJob job;
+    private final Runnable ack;
+    private final Consumer<Boolean> nack;
+
+    public JudgeDelivery(JudgeJob job, Runnable ack, Consumer<Boolean> nack) {
+        this.job = job;
+        this.ack = ack;
+        this.nack = nack;
+    }
+
+    public JudgeJob getJob() {
+        return job;
+    }
+
+    public void ack() {
+        ack.run();
+    }
+
+    public void nack(boolean requeue) {
+        nack.accept(requeue);
+    }
+}
@@ -0,0 +1,126 @@
+package com.crucible.platform.v1.judge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.crucible.platform.v1.dto.submission.JudgeJob;
+import com.crucible.platform.v1.repository.SubmissionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Queues pending submissions again when their judge worker is gone: those whose lease expired
+ * without a verdict, and those no worker leased within {@code republishAfter}, e.g. because
+ * their node stopped between saving and publishing them. Submissions that used up
+ * {@code maxAttempts} leases are given up as Internal Error instead, so that one that keeps
+ * killing its workers doesn't take down every node in turn.
+ *
+ * Every node in async mode sweeps; the sweeps skip rows locked by each other, and a job queued
+ * twice is harmless since only one worker can lease the submission.
+ */
+@Component
+public class JudgeLeaseReclaimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JudgeLeaseReclaimer.class);
+
+    private final SubmissionRepository submissionRepository;
+    private final JudgeQueue judgeQueue;
+    private final boolean enabled;
+    private final Duration visibilityTimeout;
+    private final Duration reclaimInterval;
+    private final Duration republishAfter;
+    private final int maxAttempts;
+    private final int batchSize;
+    private final Counter reclaimed;
+    private final Counter abandoned;
+
+    private Disposable sweeper;
+
+    public JudgeLeaseReclaimer(
+            SubmissionRepository submissionRepository,
+            JudgeQueue judgeQueue,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.judge.mode}") String judgeMode,
+            @Value("${crucible.judge.lease.visibility-timeout}") Duration visibilityTimeout,
+            @Value("${crucible.judge.lease.reclaim-interval}") Duration reclaimInterval,
+            @Value("${crucible.judge.lease.republish-after}") Duration republishAfter,
+            @Value("${crucible.judge.lease.max-attempts}") int maxAttempts,
+            @Value("${crucible.judge.lease.reclaim-batch-size}") int batchSize) {
+        this.submissionRepository = submissionRepository;
+        this.judgeQueue = judgeQueue;
+        this.enabled = "async".equalsIgnoreCase(judgeMode);
+        this.visibilityTimeout = visibilityTimeout;
+        this.reclaimInterval = reclaimInterval;
+        this.republishAfter = republishAfter;
+        this.maxAttempts = maxAttempts;
+        this.batchSize = batchSize;
+        this.reclaimed = Counter.builder("crucible.judge.leases.reclaimed")
+            .description("Pending submissions queued again after their worker was gone")
+            .register(meterRegistry);
+        this.abandoned = Counter.builder("crucible.judge.leases.abandoned")
+            .description("Pending submissions given up after too many leases")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        sweeper = Flux.interval(reclaimInterval, reclaimInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> sweep()
+                .onErrorResume(e -> {
+                    logger.warn("Failed to reclaim judge leases: {}", e.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.dispose();
+        }
+    }
+
+    private Mono<Void> sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        Mono<Void> abandon = submissionRepository.abandonExhausted(now, maxAttempts)
+            .doOnNext(submissionId -> {
+                abandoned.increment();
+                logger.error("Giving up on submission {} after {} judge attempts", submissionId, maxAttempts);
+            })
+            .then();
+
+        // Held back for a visibility timeout so that the next sweeps don't queue them again
+        // while the new jobs wait for a worker
+        Mono<Void> reclaim = submissionRepository.reclaimLeases(now, now.minus(republishAfter),
+                now.plus(visibilityTimeout), maxAttempts, batchSize)
+            .concatMap(submissionId -> judgeQueue.publish(new JudgeJob(submissionId))
+                .doOnSuccess(ignored -> {
+                    reclaimed.increment();
+                    logger.warn("Queued submission {} again, its judge worker is gone", submissionId);
+                })
+                // Reclaimed again once the hold expires
+                .onErrorResume(e -> {
+                    logger.warn("Failed to queue submission {} again: {}", submissionId, e.getMessage());
+                    return Mono.empty();
+                }))
+            .then();
+
+        return abandon.then(reclaim);
+    }
+}
@@ -0,0 +1,22 @@
+package com.crucible.platform.v1.judge;
+
+import com.crucible.platform.v1.dto.submission.JudgeJob;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Transport between the submit endpoints and the judge workers.
+ * Deliveries must be acked once graded; nacked deliveries may be redelivered.
+ */
+public interface JudgeQueue {
+
+    Mono<Void> publish(JudgeJob job);
+
+    Flux<JudgeDelivery> receive();
+
+    /**
+     * Jobs waiting to be delivered to a worker
+     */
+    Mono<Long> depth();
+}
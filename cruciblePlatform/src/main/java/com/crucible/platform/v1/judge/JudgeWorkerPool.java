@@ -0,0 +1,156 @@
+package com.crucible.platform.v1.judge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.crucible.platform.v1.entity.Submission;
+import com.crucible.platform.v1.repository.SubmissionRepository;
+import com.crucible.platform.v1.service.SubmissionService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Consumes judge jobs from the queue and grades them, at most {@code crucible.judge.workers}
+ * at a time. Only started when submissions are judged asynchronously.
+ *
+ * Delivery is at least once, so a worker first leases the submission: it grades only
+ * submissions that are still pending and not leased by a live worker, and renews the lease
+ * every third of {@code crucible.judge.lease.visibility-timeout} while grading. A delivery
+ * of a graded or leased submission is a duplicate and is dropped. If this node dies, its
+ * leases expire and {@link JudgeLeaseReclaimer} queues the submissions again.
+ */
+@Component
+public class JudgeWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(JudgeWorkerPool.class);
+
+    private final JudgeQueue judgeQueue;
+    private final SubmissionService submissionService;
+    private final SubmissionRepository submissionRepository;
+    private final boolean enabled;
+    private final int workers;
+    private final Duration visibilityTimeout;
+    private final String workerId = workerId();
+    private final Counter duplicates;
+    private final Counter lostLeases;
+
+    private Disposable subscription;
+
+    public JudgeWorkerPool(
+            JudgeQueue judgeQueue,
+            SubmissionService submissionService,
+            SubmissionRepository submissionRepository,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.judge.mode}") String judgeMode,
+            @Value("${crucible.judge.workers}") int workers,
+            @Value("${crucible.judge.lease.visibility-timeout}") Duration visibilityTimeout) {
+        this.judgeQueue = judgeQueue;
+        this.submissionService = submissionService;
+        this.submissionRepository = submissionRepository;
+        this.enabled = "async".equalsIgnoreCase(judgeMode);
+        this.workers = workers;
+        this.visibilityTimeout = visibilityTimeout;
+        this.duplicates = Counter.builder("crucible.judge.leases.duplicates")
+            .description("Deliveries dropped because the submission was graded or leased already")
+            .register(meterRegistry);
+        this.lostLeases = Counter.builder("crucible.judge.leases.lost")
+            .description("Gradings abandoned because their lease was reclaimed")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        logger.info("Starting judge worker pool {} with {} workers", workerId, workers);
+        subscription = judgeQueue.receive()
+            .flatMap(this::handle, workers)
+            .subscribe(null, e -> logger.error("Judge worker pool stopped: {}", e.getMessage(), e));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Grade the delivered submission under a lease. The delivery is settled either way: a
+     * failed grading keeps its lease until it expires, and is then retried by the reclaimer
+     * rather than redelivered straight away.
+     */
+    private Mono<Void> handle(JudgeDelivery delivery) {
+        Long submissionId = delivery.getJob().getSubmissionId();
+        LocalDateTime now = LocalDateTime.now();
+        return submissionRepository.acquireLease(submissionId, workerId, now, now.plus(visibilityTimeout))
+            .flatMap(submission -> gradeUnderLease(submission).thenReturn(true))
+            .defaultIfEmpty(false)
+            .doOnNext(leased -> {
+                if (!leased) {
+                    duplicates.increment();
+                    logger.debug("Submission {} is graded or leased already, dropping the delivery", submissionId);
+                }
+                delivery.ack();
+            })
+            .then()
+            .onErrorResume(e -> {
+                logger.error("Failed to judge submission {}: {}", submissionId, e.getMessage(), e);
+                delivery.nack(false);
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Grade while renewing the lease. Grading is cancelled once a renewal finds the lease
+     * reclaimed, since another worker may be grading the submission by then. A renewal that
+     * finds the submission graded, by us or anyone else, leaves the grading to finish.
+     */
+    private Mono<Void> gradeUnderLease(Submission submission) {
+        Duration renewEvery = visibilityTimeout.dividedBy(3);
+        Mono<Submission> leaseLost = Flux.interval(renewEvery)
+            .concatMap(tick -> submissionRepository.renewLease(submission.getId(), workerId,
+                LocalDateTime.now().plus(visibilityTimeout)))
+            .filter(renewed -> renewed == 0)
+            .concatMap(notRenewed -> submissionRepository.findById(submission.getId()))
+            .filter(current -> "Pending".equals(current.getStatus()))
+            .next()
+            .doOnNext(lost -> {
+                lostLeases.increment();
+                logger.warn("Lost the lease on submission {}, abandoning its grading", submission.getId());
+            });
+
+        return submissionService.judgeSubmission(submission)
+            .takeUntilOther(leaseLost);
+    }
+
+    /**
+     * Name of this node in the leases it holds: the host name, plus a random suffix that keeps
+     * a restarted process from picking up its predecessor's leases as its own
+     */
+    private static String workerId() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        try {
+            String host = InetAddress.getLocalHost().getHostName();
+            return (host.length() > 48 ? host.substring(0, 48) : host) + "-" + suffix;
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
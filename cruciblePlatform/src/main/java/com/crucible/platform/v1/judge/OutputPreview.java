@@ -0,0 +1,73 @@
+package com.crucible.platform.v1.judge;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caps the test data and program output kept with a result, so that a program printing
+ * megabytes cannot bloat the submission's results, its API responses or the verdict cache.
+ * Checkers always see the full output; only what is stored and shown afterwards is cut.
+ */
+@Component
+public class OutputPreview {
+
+    private final int maxBytes;
+
+    public OutputPreview(@Value("${crucible.judge.results.preview-bytes}") int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The longest prefix of {@code text} that is at most {@code maxBytes} in UTF-8, cut
+     * between code points
+     */
+    public String of(String text) {
+        if (text == null || !exceeds(text)) {
+            return text;
+        }
+        int bytes = 0;
+        int end = 0;
+        while (end < text.length()) {
+            int codePoint = text.codePointAt(end);
+            int size = utf8Size(codePoint);
+            if (bytes + size > maxBytes) {
+                break;
+            }
+            bytes += size;
+            end += Character.charCount(codePoint);
+        }
+        return text.substring(0, end);
+    }
+
+    /**
+     * Whether {@code text} is longer than {@code maxBytes} in UTF-8
+     */
+    public boolean exceeds(String text) {
+        if (text == null || (long) text.length() * 3 <= maxBytes) {
+            return false;
+        }
+        if (text.length() > maxBytes) {
+            return true;
+        }
+        long bytes = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            bytes += utf8Size(codePoint);
+            if (bytes > maxBytes) {
+                return true;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return false;
+    }
+
+    private static int utf8Size(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+}
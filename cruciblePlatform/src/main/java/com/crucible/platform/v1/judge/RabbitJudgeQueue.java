@@ -0,0 +1,96 @@
+package com.crucible.platform.v1.judge;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.crucible.platform.v1.dto.submission.JudgeJob;
+import com.crucible.platform.v1.exceptions.InternalServerErrorException;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.MessageProperties;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.ConsumeOptions;
+import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.QueueSpecification;
+import reactor.rabbitmq.RabbitFlux;
+import reactor.rabbitmq.Receiver;
+import reactor.rabbitmq.ReceiverOptions;
+import reactor.rabbitmq.Sender;
+import reactor.rabbitmq.SenderOptions;
+
+/**
+ * Durable judge queue on RabbitMQ. Messages are persistent and published with confirms,
+ * and deliveries are acked manually so a job is only dropped once it has been graded.
+ */
+public class RabbitJudgeQueue implements JudgeQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(RabbitJudgeQueue.class);
+
+    private final Sender sender;
+    private final Receiver receiver;
+    private final String queueName;
+    private final int prefetch;
+    private final Mono<AMQP.Queue.DeclareOk> declareQueue;
+
+    public RabbitJudgeQueue(ConnectionFactory connectionFactory, String queueName, int prefetch) {
+        this.sender = RabbitFlux.createSender(new SenderOptions().connectionFactory(connectionFactory));
+        this.receiver = RabbitFlux.createReceiver(new ReceiverOptions().connectionFactory(connectionFactory));
+        this.queueName = queueName;
+        this.prefetch = prefetch;
+        // Declare once per process, but retry the declaration if the broker was down the first time
+        this.declareQueue = sender.declareQueue(QueueSpecification.queue(queueName).durable(true))
+            .cache(ok -> Duration.ofMillis(Long.MAX_VALUE), e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @Override
+    public Mono<Void> publish(JudgeJob job) {
+        OutboundMessage message = new OutboundMessage("", queueName,
+            MessageProperties.PERSISTENT_TEXT_PLAIN, encode(job));
+
+        return declareQueue
+            .thenMany(sender.sendWithPublishConfirms(Mono.just(message)))
+            .next()
+            .flatMap(result -> {
+                if (!result.isAck()) {
+                    return Mono.error(new InternalServerErrorException(
+                        "Judge queue rejected submission " + job.getSubmissionId()));
+                }
+                return Mono.<Void>empty();
+            });
+    }
+
+    @Override
+    public Flux<JudgeDelivery> receive() {
+        return declareQueue
+            .thenMany(receiver.consumeManualAck(queueName, new ConsumeOptions().qos(prefetch)))
+            .map(delivery -> new JudgeDelivery(decode(delivery.getBody()), delivery::ack, delivery::nack));
+    }
+
+    @Override
+    public Mono<Long> depth() {
+        // Passive declaration only reads the queue, including its count of ready messages
+        return sender.declareQueue(QueueSpecification.queue(queueName).passive(true))
+            .map(ok -> (long) ok.getMessageCount());
+    }
+
+    @PreDestroy
+    public void close() {
+        logger.info("Closing RabbitMQ judge queue connections");
+        sender.close();
+        receiver.close();
+    }
+
+    private byte[] encode(JudgeJob job) {
+        return String.valueOf(job.getSubmissionId()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private JudgeJob decode(byte[] body) {
+        return new JudgeJob(Long.valueOf(new String(body, StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,241 @@
+package com.crucible.platform.v1.judge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import com.crucible.platform.v1.entity.TestCase;
+import com.crucible.platform.v1.repository.TestCaseRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Test sets of questions kept in memory, so that judging a contest reads the test cases of a
+ * question from the database once instead of on every submission.
+ *
+ * Every test set carries the question's version, a counter in Redis that
+ * {@link #invalidate(Long)} bumps whenever a test case of the question changes. The node that
+ * made the change drops its entry at once and announces the new version on a Redis channel;
+ * the other nodes drop any entry older than it. The version is read before the test cases, so
+ * an entry is never newer than its version says. Entries also expire after {@code maxAge} in
+ * case an announcement is lost, and the least recently used ones are evicted beyond
+ * {@code maxEntries}.
+ *
+ * Test sets hold only the test case rows; the test data itself stays in the blob store.
+ */
+@Component
+public class TestSetCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestSetCache.class);
+
+    private static final String VERSION_PREFIX = "crucible:testset-generation:";
+    private static final String INVALIDATION_CHANNEL = "crucible:testset-invalidations";
+
+    private final TestCaseRepository testCaseRepository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxAgeMillis;
+    private final Counter hits;
+    private final Counter misses;
+
+    // Access-ordered for LRU eviction; guarded by synchronized (entries)
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Disposable invalidations;
+
+    public TestSetCache(
+            TestCaseRepository testCaseRepository,
+            ReactiveStringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.judge.test-set-cache.enabled}") boolean enabled,
+            @Value("${crucible.judge.test-set-cache.max-entries}") int maxEntries,
+            @Value("${crucible.judge.test-set-cache.max-age}") Duration maxAge) {
+        this.testCaseRepository = testCaseRepository;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.hits = Counter.builder("crucible.judge.test-set-cache.requests")
+            .description("Test set lookups by the judge")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.misses = Counter.builder("crucible.judge.test-set-cache.requests")
+            .description("Test set lookups by the judge")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        Gauge.builder("crucible.judge.test-set-cache.size", entries, map -> {
+                synchronized (map) {
+                    return map.size();
+                }
+            })
+            .description("Questions with a cached test set")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Immutable test set of a question, in database order and split into sample and hidden
+     * test cases. A negative version means the version could not be read and the test set
+     * was not cached.
+     */
+    public record TestSet(long version, List<TestCase> all, List<TestCase> samples, List<TestCase> hidden) {
+
+        static TestSet of(long version, List<TestCase> testCases) {
+            return new TestSet(version, List.copyOf(testCases),
+                testCases.stream().filter(TestCase::getIsSample).toList(),
+                testCases.stream().filter(testCase -> !testCase.getIsSample()).toList());
+        }
+    }
+
+    private record Entry(Mono<TestSet> testSet, long createdAt) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void listenForInvalidations() {
+        if (!enabled) {
+            return;
+        }
+        invalidations = redisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+            // Announcements may have been missed while (re)connecting
+            .doOnSubscribe(subscription -> clear())
+            .doOnNext(message -> onInvalidation(message.getMessage()))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                .doBeforeRetry(signal -> logger.warn("Test set invalidation channel lost, reconnecting: {}",
+                    signal.failure().getMessage())))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (invalidations != null) {
+            invalidations.dispose();
+        }
+    }
+
+    /**
+     * Test set of the question, loaded from the database on a miss. Concurrent misses for the
+     * same question share one load.
+     */
+    public Mono<TestSet> get(Long questionId) {
+        if (!enabled) {
+            return load(questionId);
+        }
+        return Mono.defer(() -> {
+            Entry created = null;
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(questionId);
+                if (entry == null || System.currentTimeMillis() - entry.createdAt() >= maxAgeMillis) {
+                    created = new Entry(load(questionId).cache(), System.currentTimeMillis());
+                    entries.put(questionId, created);
+                    evictEldest();
+                    entry = created;
+                }
+            }
+            (created != null ? misses : hits).increment();
+            Entry current = entry;
+            return current.testSet()
+                .doOnNext(testSet -> {
+                    if (testSet.version() < 0) {
+                        remove(questionId, current);
+                    }
+                })
+                .doOnError(e -> remove(questionId, current));
+        });
+    }
+
+    /**
+     * Start a new version of the question's test set on every node. Also retires the
+     * verdicts cached for the question, whose keys include the version.
+     */
+    public Mono<Void> invalidate(Long questionId) {
+        return Mono.fromRunnable(() -> remove(questionId))
+            .then(redisTemplate.opsForValue().increment(VERSION_PREFIX + questionId))
+            .flatMap(version -> {
+                logger.debug("Test set of question {} is now version {}", questionId, version);
+                return redisTemplate.convertAndSend(INVALIDATION_CHANNEL, questionId + ":" + version);
+            })
+            .onErrorResume(e -> {
+                logger.error("Failed to announce the new test set of question {}: {}", questionId, e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<TestSet> load(Long questionId) {
+        return redisTemplate.opsForValue().get(VERSION_PREFIX + questionId)
+            .map(Long::parseLong)
+            .defaultIfEmpty(0L)
+            .onErrorResume(e -> {
+                logger.warn("Test set version of question {} unavailable, not caching it: {}", questionId, e.getMessage());
+                return Mono.just(-1L);
+            })
+            .flatMap(version -> testCaseRepository.findByQuestionId(questionId)
+                .collectList()
+                .map(testCases -> TestSet.of(version, testCases)))
+            .doOnNext(testSet -> logger.debug("Loaded {} test cases of question {} at version {}",
+                testSet.all().size(), questionId, testSet.version()));
+    }
+
+    private void onInvalidation(String message) {
+        int separator = message.indexOf(':');
+        try {
+            Long questionId = Long.valueOf(message.substring(0, separator));
+            long version = Long.parseLong(message.substring(separator + 1));
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(questionId);
+            }
+            if (entry == null) {
+                return;
+            }
+            // Loads still in flight have no version yet and are dropped as well
+            TestSet loaded = entry.testSet().toFuture().getNow(null);
+            if (loaded == null || loaded.version() < version) {
+                remove(questionId, entry);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed test set invalidation '{}': {}", message, e.getMessage());
+        }
+    }
+
+    private void evictEldest() {
+        var iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private void remove(Long questionId) {
+        synchronized (entries) {
+            entries.remove(questionId);
+        }
+    }
+
+    private void remove(Long questionId, Entry entry) {
+        synchronized (entries) {
+            entries.remove(questionId, entry);
+        }
+    }
+
+    private void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+}
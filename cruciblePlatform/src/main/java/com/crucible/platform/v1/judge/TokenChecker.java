@@ -0,0 +1,111 @@
+package com.crucible.platform.v1.judge;
+
+import java.util.regex.Pattern;
+
+/**
+ * Token-wise comparison: outputs are sequences of whitespace-separated tokens, and any amount
+ * or kind of whitespace between them is equivalent.
+ *
+ * With an epsilon, two tokens that are both plain decimal or scientific numbers are equal when
+ * they differ by at most epsilon, either absolutely or relative to the expected value; other
+ * tokens, including Java-only forms such as {@code 1f}, {@code 0x1p3} or {@code NaN}, must
+ * match exactly.
+ */
+public class TokenChecker implements Checker {
+
+    private static final Pattern NUMBER = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    private final Double epsilon;
+
+    public TokenChecker(Double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public CheckResult check(CharSequence expected, CharSequence actual) {
+        Cursor e = new Cursor(expected);
+        Cursor a = new Cursor(actual);
+        int tokenNumber = 0;
+        while (true) {
+            boolean hasExpected = e.next();
+            boolean hasActual = a.next();
+            if (!hasExpected && !hasActual) {
+                return CheckResult.accepted();
+            }
+            tokenNumber++;
+            if (!hasExpected || !hasActual || !tokensEqual(e, a)) {
+                // The line of the extra token if the expected output has ended
+                int line = hasExpected ? e.line : a.line;
+                return CheckResult.mismatch("Token " + tokenNumber + " (line " + line + "): expected "
+                    + CheckResult.shown(expected, e.start, e.end) + ", got "
+                    + CheckResult.shown(actual, a.start, a.end));
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return epsilon == null ? "tokens" : "float(" + epsilon + ")";
+    }
+
+    private boolean tokensEqual(Cursor e, Cursor a) {
+        if (regionEquals(e, a)) {
+            return true;
+        }
+        if (epsilon == null || !isNumber(e) || !isNumber(a)) {
+            return false;
+        }
+        double expectedValue = Double.parseDouble(e.text.subSequence(e.start, e.end).toString());
+        double actualValue = Double.parseDouble(a.text.subSequence(a.start, a.end).toString());
+        double difference = Math.abs(expectedValue - actualValue);
+        return difference <= epsilon || difference <= epsilon * Math.abs(expectedValue);
+    }
+
+    private static boolean regionEquals(Cursor e, Cursor a) {
+        int length = e.end - e.start;
+        if (length != a.end - a.start) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (e.text.charAt(e.start + k) != a.text.charAt(a.start + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double.parseDouble alone also takes suffixes, hex floats, NaN and Infinity
+    private static boolean isNumber(Cursor c) {
+        return NUMBER.matcher(c.text).region(c.start, c.end).matches();
+    }
+
+    /**
+     * Walks the tokens of one output, tracking the line the current token is on
+     */
+    private static final class Cursor {
+        final CharSequence text;
+        int start;
+        int end;
+        int line = 1;
+
+        Cursor(CharSequence text) {
+            this.text = text;
+        }
+
+        boolean next() {
+            int i = end;
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                }
+                i++;
+            }
+            start = i;
+            while (i < text.length() && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            end = i;
+            return start < end;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.crucible.platform.v1.judge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import com.crucible.platform.v1.dto.submission.CachedVerdict;
+import com.crucible.platform.v1.entity.TestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Verdicts of graded submissions, shared by all nodes through Redis, so that a byte-identical
+ * resubmission against an unchanged test set is answered without executing anything.
+ *
+ * Entries are keyed by question, the version of the question's test set, a hash of the test
+ * set, grading settings (judging policy and checker), language and code hash.
+ * {@link TestSetCache#invalidate(Long)} bumps the version whenever a test case changes; the
+ * test-set hash keeps a lost invalidation from ever serving a stale verdict. Superseded
+ * entries are never read again and expire with the TTL.
+ *
+ * The cache is best effort: a Redis failure is logged and treated as a miss.
+ */
+@Component
+public class VerdictCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerdictCache.class);
+
+    private static final String VERDICT_PREFIX = "crucible:verdict:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final JsonMapper jsonMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public VerdictCache(
+            ReactiveStringRedisTemplate redisTemplate,
+            JsonMapper jsonMapper,
+            @Value("${crucible.judge.verdict-cache.enabled}") boolean enabled,
+            @Value("${crucible.judge.verdict-cache.ttl}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.enabled = enabled;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Resolve the cache key of a submission; empty when the cache is disabled or the test set
+     * version is unknown
+     */
+    public Mono<String> key(Long questionId, TestSetCache.TestSet testSet, String settings, String language, String code) {
+        if (!enabled || testSet.version() < 0) {
+            return Mono.empty();
+        }
+        return Mono.fromSupplier(() -> VERDICT_PREFIX + questionId + ":" + testSet.version() + ":"
+            + testSetHash(testSet.all()) + ":" + settings + ":" + language + ":" + sha256(code));
+    }
+
+    public Mono<CachedVerdict> get(String key) {
+        return redisTemplate.opsForValue().get(key)
+            .map(json -> jsonMapper.readValue(json, CachedVerdict.class))
+            .onErrorResume(e -> {
+                logger.warn("Failed to read cached verdict {}: {}", key, e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    public Mono<Void> put(String key, CachedVerdict verdict) {
+        return Mono.fromCallable(() -> jsonMapper.writeValueAsString(verdict))
+            .flatMap(json -> redisTemplate.opsForValue().set(key, json, ttl))
+            .onErrorResume(e -> {
+                logger.warn("Failed to cache verdict {}: {}", key, e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private static String testSetHash(List<TestCase> testCases) {
+        MessageDigest digest = newDigest();
+        testCases.stream()
+            .sorted(Comparator.comparing(TestCase::getId))
+            .forEach(testCase -> {
+                update(digest, String.valueOf(testCase.getId()));
+                update(digest, testCase.getInputHash());
+                update(digest, testCase.getExpectedOutputHash());
+                update(digest, String.valueOf(testCase.getIsSample()));
+            });
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(String value) {
+        MessageDigest digest = newDigest();
+        update(digest, value);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        // Length prefix so that ("ab", "c") and ("a", "bc") hash differently
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.crucible.platform.v1.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.crucible.platform.v1.entity.RejudgeJob;
+
+import java.time.LocalDateTime;
+
+public interface RejudgeJobRepository extends ReactiveCrudRepository<RejudgeJob, Long> {
+    Flux<RejudgeJob> findByContestIdAndStatus(Long contestId, String status);
+
+    /**
+     * Take over a paused or failed job, or a running one whose owner stopped checkpointing
+     */
+    @Modifying
+    @Query("UPDATE rejudge_jobs SET status = 'running', owner = :owner, message = NULL, heartbeat_at = :now, updated_at = :now " +
+           "WHERE id = :id AND (status IN ('paused', 'failed') " +
+           "OR (status = 'running' AND (heartbeat_at IS NULL OR heartbeat_at < :staleBefore)))")
+    Mono<Integer> claim(Long id, String owner, LocalDateTime now, LocalDateTime staleBefore);
+
+    /**
+     * Record the owner's progress and read back the status, which a pause may have changed.
+     * Empty once another run has taken the job over.
+     */
+    @Query("UPDATE rejudge_jobs SET checkpoint_submission_id = :checkpointSubmissionId, " +
+           "processed_submissions = :processedSubmissions, changed_verdicts = :changedVerdicts, " +
+           "failed_submissions = :failedSubmissions, heartbeat_at = :now, updated_at = :now " +
+           "WHERE id = :id AND owner = :owner RETURNING status")
+    Mono<String> checkpoint(Long id, String owner, Long checkpointSubmissionId, Integer processedSubmissions,
+                            Integer changedVerdicts, Integer failedSubmissions, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE rejudge_jobs SET status = :status, message = :message, updated_at = :now " +
+           "WHERE id = :id AND owner = :owner AND status = 'running'")
+    Mono<Integer> finish(Long id, String owner, String status, String message, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE rejudge_jobs SET status = 'paused', updated_at = :now WHERE id = :id AND status = 'running'")
+    Mono<Integer> pause(Long id, LocalDateTime now);
+}
@@ -1,11 +1,16 @@
 package com.crucible.platform.v1.repository;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import com.crucible.platform.v1.dto.contest.ContestSolve;
 import com.crucible.platform.v1.entity.Submission;
 
+import java.time.LocalDateTime;
+
 public interface SubmissionRepository extends ReactiveCrudRepository<Submission, Long> {
     Mono<Submission> findById(Long id);
     Flux<Submission> findByUserId(Long userId);
@@ -14,4 +19,102 @@ public interface SubmissionRepository extends ReactiveCrudRepository<Submission,
     Flux<Submission> findByStatus(String status);
     Flux<Submission> findByUserIdAndQuestionIdAndContestId(Long userId, Long questionId, Long contestId);
     Flux<Submission> findByUserIdAndContestId(Long userId, Long contestId);
+
+    /**
+     * First accepted submission of every question solved by a participant of the contest
+     */
+    @Query("SELECT s.user_id, s.question_id, MIN(s.created_at) AS solved_at, COALESCE(q.points, 0) AS points " +
+           "FROM submissions s " +
+           "JOIN questions q ON q.id = s.question_id " +
+           "JOIN user_contests uc ON uc.user_id = s.user_id AND uc.contest_id = s.contest_id " +
+           "WHERE s.contest_id = :contestId AND s.status = 'Accepted' " +
+           "GROUP BY s.user_id, s.question_id, q.points")
+    Flux<ContestSolve> findContestSolves(Long contestId);
+
+    // Rejudge scopes: one question, or every question of a contest (practice submissions included)
+
+    @Query("SELECT COALESCE(MAX(id), 0) FROM submissions WHERE question_id = :questionId")
+    Mono<Long> findMaxIdByQuestionId(Long questionId);
+
+    @Query("SELECT COALESCE(MAX(id), 0) FROM submissions " +
+           "WHERE question_id IN (SELECT id FROM questions WHERE contest_id = :contestId)")
+    Mono<Long> findMaxIdByContestQuestions(Long contestId);
+
+    // Rejudges skip pending submissions, which are still being graded for the first time
+
+    @Query("SELECT COUNT(*) FROM submissions WHERE question_id = :questionId AND id > :afterId AND id <= :maxId " +
+           "AND status <> 'Pending'")
+    Mono<Long> countByQuestionIdInRange(Long questionId, Long afterId, Long maxId);
+
+    @Query("SELECT COUNT(*) FROM submissions " +
+           "WHERE question_id IN (SELECT id FROM questions WHERE contest_id = :contestId) AND id > :afterId AND id <= :maxId " +
+           "AND status <> 'Pending'")
+    Mono<Long> countByContestQuestionsInRange(Long contestId, Long afterId, Long maxId);
+
+    @Query("SELECT * FROM submissions WHERE question_id = :questionId AND id > :afterId AND id <= :maxId " +
+           "AND status <> 'Pending' ORDER BY id LIMIT :limit")
+    Flux<Submission> findPageByQuestionId(Long questionId, Long afterId, Long maxId, int limit);
+
+    @Query("SELECT * FROM submissions " +
+           "WHERE question_id IN (SELECT id FROM questions WHERE contest_id = :contestId) AND id > :afterId AND id <= :maxId " +
+           "AND status <> 'Pending' ORDER BY id LIMIT :limit")
+    Flux<Submission> findPageByContestQuestions(Long contestId, Long afterId, Long maxId, int limit);
+
+    // Judge worker leases (async mode)
+
+    /**
+     * Lease a pending submission for grading. Empty if it is graded already or another worker
+     * holds an unexpired lease on it.
+     */
+    @Query("UPDATE submissions SET lease_owner = :owner, lease_expires_at = :expiresAt, judge_attempts = judge_attempts + 1 " +
+           "WHERE id = :id AND status = 'Pending' " +
+           "AND (lease_owner IS NULL OR lease_owner = :owner OR lease_expires_at < :now) RETURNING *")
+    Mono<Submission> acquireLease(Long id, String owner, LocalDateTime now, LocalDateTime expiresAt);
+
+    /**
+     * Extend the owner's lease; 0 once the lease was reclaimed or the submission graded
+     */
+    @Modifying
+    @Query("UPDATE submissions SET lease_expires_at = :expiresAt " +
+           "WHERE id = :id AND status = 'Pending' AND lease_owner = :owner")
+    Mono<Integer> renewLease(Long id, String owner, LocalDateTime expiresAt);
+
+    /**
+     * Store the verdict of a pending submission, unless another worker got there first. A null
+     * owner is a submission graded without a lease, in sync mode. 0 if the verdict was not stored.
+     */
+    @Modifying
+    @Query("UPDATE submissions SET status = :status, output = NULL, passed_test_cases = :passedTestCases, " +
+           "total_test_cases = :totalTestCases, lease_owner = NULL, lease_expires_at = NULL " +
+           "WHERE id = :id AND status = 'Pending' AND (lease_owner IS NULL OR lease_owner = :owner)")
+    Mono<Integer> completeJudging(Long id, String owner, String status, Integer passedTestCases, Integer totalTestCases);
+
+    /**
+     * Replace the verdict of a graded submission with its rejudged one. 0 if the submission is
+     * pending, e.g. queued for grading again meanwhile, and the verdict was not stored.
+     */
+    @Modifying
+    @Query("UPDATE submissions SET status = :status, output = NULL, passed_test_cases = :passedTestCases, " +
+           "total_test_cases = :totalTestCases WHERE id = :id AND status <> 'Pending'")
+    Mono<Integer> completeRejudging(Long id, String status, Integer passedTestCases, Integer totalTestCases);
+
+    /**
+     * Release expired leases, and leases never taken since {@code unleasedBefore}, so that the
+     * submissions can be queued again. The released submissions are held back from the next
+     * sweeps until {@code holdUntil}, while their new jobs wait in the queue. Emits their ids.
+     */
+    @Query("UPDATE submissions SET lease_owner = NULL, lease_expires_at = :holdUntil WHERE id IN (" +
+           "  SELECT id FROM submissions WHERE status = 'Pending' AND judge_attempts < :maxAttempts " +
+           "  AND (lease_expires_at < :now OR (lease_expires_at IS NULL AND created_at < :unleasedBefore)) " +
+           "  ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED" +
+           ") RETURNING id")
+    Flux<Long> reclaimLeases(LocalDateTime now, LocalDateTime unleasedBefore, LocalDateTime holdUntil,
+                             int maxAttempts, int limit);
+
+    /**
+     * Give up on pending submissions whose last allowed lease expired. Emits their ids.
+     */
+    @Query("UPDATE submissions SET status = 'Internal Error', lease_owner = NULL, lease_expires_at = NULL " +
+           "WHERE status = 'Pending' AND judge_attempts >= :maxAttempts AND lease_expires_at < :now RETURNING id")
+    Flux<Long> abandonExhausted(LocalDateTime now, int maxAttempts);
 }
@@ -0,0 +1,17 @@
+package com.crucible.platform.v1.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.crucible.platform.v1.entity.SubmissionResult;
+
+public interface SubmissionResultRepository extends ReactiveCrudRepository<SubmissionResult, Long> {
+    Flux<SubmissionResult> findBySubmissionIdOrderByTestCaseNumber(Long submissionId);
+
+    @Modifying
+    @Query("DELETE FROM submission_results WHERE submission_id = :submissionId")
+    Mono<Integer> deleteBySubmissionId(Long submissionId);
+}
@@ -6,20 +6,66 @@ import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import com.crucible.platform.v1.dto.contest.LeaderboardEntryDto;
 import com.crucible.platform.v1.entity.UserContest;
 
 import java.time.LocalDateTime;
 
 public interface UserContestRepository extends ReactiveCrudRepository<UserContest, Long> {
+
+    /**
+     * Every participant's standing computed from the contest's accepted submissions: points and
+     * solved questions count each question's first accepted submission once, and ties on both
+     * go to the earlier last first solve, in whole seconds since the start, as in the Redis
+     * leaderboard. Participants with equal standings share a rank.
+     */
+    String STANDINGS =
+        "WITH solves AS (" +
+        "  SELECT s.user_id, s.question_id, MIN(s.created_at) AS solved_at " +
+        "  FROM submissions s WHERE s.contest_id = :contestId AND s.status = 'Accepted' " +
+        "  GROUP BY s.user_id, s.question_id" +
+        "), totals AS (" +
+        "  SELECT solves.user_id, COUNT(*) AS solved_problems, SUM(COALESCE(q.points, 0)) AS total_score, " +
+        "    MAX(solves.solved_at) AS last_solved_at " +
+        "  FROM solves JOIN questions q ON q.id = solves.question_id GROUP BY solves.user_id" +
+        "), standings AS (" +
+        "  SELECT uc.user_id, u.username, " +
+        "    CAST(COALESCE(t.total_score, 0) AS INT) AS total_score, " +
+        "    CAST(COALESCE(t.solved_problems, 0) AS INT) AS solved_problems, " +
+        "    CAST(RANK() OVER (ORDER BY COALESCE(t.total_score, 0) DESC, COALESCE(t.solved_problems, 0) DESC, " +
+        "      GREATEST(FLOOR(EXTRACT(EPOCH FROM t.last_solved_at - c.start_time)), 0) ASC NULLS LAST) AS INT) AS rank " +
+        "  FROM user_contests uc " +
+        "  JOIN users u ON u.id = uc.user_id " +
+        "  JOIN contests c ON c.id = uc.contest_id " +
+        "  LEFT JOIN totals t ON t.user_id = uc.user_id " +
+        "  WHERE uc.contest_id = :contestId" +
+        ") ";
+
     Flux<UserContest> findByUserId(Long userId);
     Flux<UserContest> findByContestId(Long contestId);
     
     @Query("SELECT * FROM user_contests WHERE user_id = :userId AND contest_id = :contestId")
     Mono<UserContest> findByUserIdAndContestId(Long userId, Long contestId);
     
+    /**
+     * Lock the participant's row until the end of the transaction, so that concurrent verdicts
+     * update their stats one after the other
+     */
+    @Query("SELECT * FROM user_contests WHERE user_id = :userId AND contest_id = :contestId FOR UPDATE")
+    Mono<UserContest> lockByUserIdAndContestId(Long userId, Long contestId);
+
     @Query("SELECT * FROM user_contests WHERE contest_id = :contestId ORDER BY total_points DESC, last_submission_at ASC")
     Flux<UserContest> findByContestIdOrderByTotalPointsDescLastSubmissionAtAsc(Long contestId);
     
+    /**
+     * One page of the contest's standings, best first, in a single round trip
+     */
+    @Query(STANDINGS + "SELECT * FROM standings ORDER BY rank, user_id LIMIT :limit OFFSET :offset")
+    Flux<LeaderboardEntryDto> findStandings(Long contestId, long offset, int limit);
+
+    @Query(STANDINGS + "SELECT * FROM standings WHERE user_id = :userId")
+    Mono<LeaderboardEntryDto> findStanding(Long contestId, Long userId);
+
     @Query("DELETE FROM user_contests WHERE user_id = :userId AND contest_id = :contestId")
     Mono<Void> deleteByUserIdAndContestId(Long userId, Long contestId);
     
@@ -29,4 +75,29 @@ public interface UserContestRepository extends ReactiveCrudRepository<UserContes
            "WHERE user_id = :userId AND contest_id = :contestId")
     Mono<Integer> updateUserContestStats(Long userId, Long contestId, Integer solvedQuestions, 
                                           Integer totalSubmissions, Integer totalPoints, LocalDateTime lastSubmissionAt);
+
+    /**
+     * Recompute the stats of every participant from the contest's accepted submissions in one
+     * statement, so readers see either the old or the new stats of the whole contest.
+     * Same definitions as the incremental updates: solved questions and points count each
+     * question once, total submissions counts accepted submissions.
+     */
+    @Modifying
+    @Query("WITH solved AS (" +
+           "  SELECT s.user_id, s.question_id, COUNT(*) AS accepted, MAX(s.created_at) AS last_at " +
+           "  FROM submissions s WHERE s.contest_id = :contestId AND s.status = 'Accepted' " +
+           "  GROUP BY s.user_id, s.question_id" +
+           "), totals AS (" +
+           "  SELECT solved.user_id, COUNT(*) AS solved_questions, SUM(solved.accepted) AS total_submissions, " +
+           "    SUM(COALESCE(q.points, 0)) AS total_points, MAX(solved.last_at) AS last_submission_at " +
+           "  FROM solved JOIN questions q ON q.id = solved.question_id GROUP BY solved.user_id" +
+           ") " +
+           "UPDATE user_contests uc SET " +
+           "  solved_questions = COALESCE(t.solved_questions, 0), " +
+           "  total_submissions = COALESCE(t.total_submissions, 0), " +
+           "  total_points = COALESCE(t.total_points, 0), " +
+           "  last_submission_at = t.last_submission_at " +
+           "FROM user_contests p LEFT JOIN totals t ON t.user_id = p.user_id " +
+           "WHERE p.contest_id = :contestId AND uc.contest_id = p.contest_id AND uc.user_id = p.user_id")
+    Mono<Integer> recomputeContestStats(Long contestId);
 }
@@ -1,5 +1,7 @@
 package com.crucible.platform.v1.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.WebSession;
 import reactor.core.publisher.Mono;
@@ -13,13 +15,15 @@ import com.crucible.platform.v1.dto.contest.ContestQuestionsResponse;
 import com.crucible.platform.v1.dto.contest.ContestQuestionsDto;
 import com.crucible.platform.v1.dto.contest.LeaderboardEntryDto;
 import com.crucible.platform.v1.dto.contest.ContestLeaderboardResponse;
+import com.crucible.platform.v1.dto.contest.LeaderboardEvent;
 import com.crucible.platform.v1.entity.Contest;
 import com.crucible.platform.v1.dto.ResponseEntity;
 import com.crucible.platform.v1.dto.user.UserSummaryDto;
 import com.crucible.platform.v1.entity.Question;
 import com.crucible.platform.v1.entity.UserContest;
 import com.crucible.platform.v1.entity.ContestAdmin;
-import com.crucible.platform.v1.entity.Submission;
+import com.crucible.platform.v1.entity.User;
+import com.crucible.platform.v1.exceptions.BadRequestException;
 import com.crucible.platform.v1.exceptions.ForbiddenException;
 import com.crucible.platform.v1.exceptions.NotFoundException;
 import com.crucible.platform.v1.exceptions.UnauthorizedAccessException;
@@ -32,13 +36,15 @@ import com.crucible.platform.v1.repository.SubmissionRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
 public class ContestService {
+  private static final Logger logger = LoggerFactory.getLogger(ContestService.class);
+
+  private static final int LEADERBOARD_SIZE = 5;
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final ContestRepository contestRepository;
   private final ContestAdminRepository contestAdminRepository;
   private final QuestionRepository questionRepository;
@@ -46,11 +52,14 @@ public class ContestService {
   private final UserContestRepository userContestRepository;
   private final SubmissionRepository submissionRepository;
   private final LeaderboardSseService leaderboardSseService;
+  private final LeaderboardStore leaderboardStore;
+  private final LeaderboardBroadcaster leaderboardBroadcaster;
 
   public ContestService(ContestRepository contestRepository,
       ContestAdminRepository contestAdminRepository, QuestionRepository questionRepository,
       UserRepository userRepository, UserContestRepository userContestRepository,
-      SubmissionRepository submissionRepository, LeaderboardSseService leaderboardSseService) {
+      SubmissionRepository submissionRepository, LeaderboardSseService leaderboardSseService,
+      LeaderboardStore leaderboardStore, LeaderboardBroadcaster leaderboardBroadcaster) {
     this.contestAdminRepository = contestAdminRepository;
     this.contestRepository = contestRepository;
     this.questionRepository = questionRepository;
@@ -58,6 +67,8 @@ public class ContestService {
     this.userContestRepository = userContestRepository;
     this.submissionRepository = submissionRepository;
     this.leaderboardSseService = leaderboardSseService;
+    this.leaderboardStore = leaderboardStore;
+    this.leaderboardBroadcaster = leaderboardBroadcaster;
   }
 
   public Mono<ResponseEntity<ManageContestResponse>> getContestForManagement(Long contestId, Long userId) {
@@ -146,6 +157,7 @@ public class ContestService {
         userId, 
         dto.getStartTime(), 
         dto.getEndTime(), 
+        dto.getJudgingPolicy(),
         null, 
         null
     );
@@ -218,10 +230,15 @@ public class ContestService {
             if (dto.getEndTime() != null) {
               contest.setEndTime(dto.getEndTime());
             }
+            if (dto.getJudgingPolicy() != null) {
+              contest.setJudgingPolicy(dto.getJudgingPolicy());
+            }
           }
 
           // Save the updated contest
+          // Ranking tiebreaks count from the start time
           return contestRepository.save(contest)
+              .flatMap(updatedContest -> leaderboardStore.invalidate(contestId).thenReturn(updatedContest))
               .map(updatedContest -> new ResponseEntity<>(updatedContest, "Contest updated successfully"));
         });
   }
@@ -246,6 +263,7 @@ public class ContestService {
           userContest.setUserId(userId);
           userContest.setContestId(contestId);
           return userContestRepository.save(userContest)
+              .then(leaderboardStore.addParticipant(contestId, userId))
               .then(Mono.just(new ResponseEntity<>(null, "Successfully joined contest")));
         });
   }
@@ -376,6 +394,7 @@ public class ContestService {
           // Create participation record
           UserContest userContest = new UserContest(userId, contestId);
           return userContestRepository.save(userContest)
+              .then(leaderboardStore.addParticipant(contestId, userId))
               .then(Mono.just(new ResponseEntity<>(null, "Successfully joined the contest")));
         });
   }
@@ -390,24 +409,67 @@ public class ContestService {
   }
 
   /**
-   * Streams live leaderboard updates for a contest over SSE. Emits the current standings
-   * immediately, then every subsequent update pushed after an accepted submission.
+   * One page of the standings, best first. {@code limit} is capped at {@value #MAX_PAGE_SIZE}.
+   */
+  public Mono<ResponseEntity<List<LeaderboardEntryDto>>> getStandings(Long contestId, Long userId, long offset,
+      int limit) {
+    if (offset < 0 || limit < 1) {
+      return Mono.error(new BadRequestException("offset must be at least 0 and limit at least 1"));
+    }
+    return contestRepository.findById(contestId)
+        .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
+        .flatMap(contest -> requireParticipation(contestId, userId))
+        .then(pageOfEntries(contestId, offset, Math.min(limit, MAX_PAGE_SIZE)))
+        .map(entries -> new ResponseEntity<>(entries, "Standings retrieved successfully"));
+  }
+
+  /**
+   * The caller's own rank and score in the contest
+   */
+  public Mono<ResponseEntity<LeaderboardEntryDto>> getMyStanding(Long contestId, Long userId) {
+    return contestRepository.findById(contestId)
+        .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
+        .flatMap(contest -> requireParticipation(contestId, userId))
+        .then(myEntry(contestId, userId))
+        .switchIfEmpty(Mono.error(new NotFoundException("You are not ranked in this contest")))
+        .map(entry -> new ResponseEntity<>(entry, "Standing retrieved successfully"));
+  }
+
+  private Mono<LeaderboardEntryDto> myEntry(Long contestId, Long userId) {
+    Mono<LeaderboardEntryDto> fromDatabase = userContestRepository.findStanding(contestId, userId);
+    if (!leaderboardStore.isEnabled()) {
+      return fromDatabase;
+    }
+    return leaderboardStore.standing(contestId, userId)
+        .flatMap(standing -> toEntries(List.of(standing)))
+        .map(entries -> entries.get(0))
+        .onErrorResume(e -> {
+          logger.warn("Failed to read the leaderboard of contest {} from Redis, computing it: {}", contestId, e.getMessage());
+          return fromDatabase;
+        });
+  }
+
+  /**
+   * Streams live leaderboard updates for a contest over SSE. Emits a snapshot of the last
+   * published standings immediately, then a delta for every subsequent update, the first one
+   * shortly after with fresh standings.
    */
-  public Flux<ContestLeaderboardResponse> streamLeaderboard(Long contestId, Long userId) {
+  public Flux<LeaderboardEvent> streamLeaderboard(Long contestId, Long userId) {
     return contestRepository.findById(contestId)
         .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
         .flatMap(contest -> requireParticipation(contestId, userId))
-        .then(refreshAndBroadcastLeaderboard(contestId))
-        .thenMany(leaderboardSseService.subscribe(contestId));
+        // Subscribed before the refresh is requested, so the refreshed standings reach this subscriber
+        .thenMany(leaderboardSseService.subscribe(contestId)
+            .mergeWith(refreshAndBroadcastLeaderboard(contestId).then(Mono.empty())));
   }
 
   /**
-   * Recomputes the leaderboard for a contest and pushes it to all connected SSE subscribers.
+   * Marks the contest's leaderboard as changed. It is recomputed and pushed to all connected SSE
+   * subscribers in the background, at most once per {@code crucible.leaderboard.broadcast.interval}
+   * however many changes come in meanwhile.
    */
   public Mono<Void> refreshAndBroadcastLeaderboard(Long contestId) {
-    return computeLeaderboard(contestId)
-        .doOnNext(response -> leaderboardSseService.publish(contestId, response))
-        .then();
+    return Mono.fromRunnable(() -> leaderboardBroadcaster.requestBroadcast(contestId, computeLeaderboard(contestId)));
   }
 
   private Mono<Void> requireParticipation(Long contestId, Long userId) {
@@ -424,86 +486,45 @@ public class ContestService {
   private Mono<ContestLeaderboardResponse> computeLeaderboard(Long contestId) {
     return contestRepository.findById(contestId)
         .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
-        .flatMap(contest -> {
-          // Fetch all participants for this contest
-          return userContestRepository.findByContestId(contestId)
-              .collectList()
-              .flatMap(participants -> {
-                // Get all questions for the contest
-                return questionRepository.findByContestId(contestId)
-                    .collectList()
-                    .flatMap(questions -> {
-                      // Create a map of questionId -> points
-                      Map<Long, Integer> questionPointsMap = new HashMap<>();
-                      for (Question q : questions) {
-                        questionPointsMap.put(q.getId(), q.getPoints());
-                      }
-
-                      // For each participant, calculate their score
-                      return Flux.fromIterable(participants)
-                          .flatMap(participant -> {
-                            Long participantUserId = participant.getUserId();
-
-                            // Get all accepted submissions for this user in this contest
-                            return submissionRepository.findByUserIdAndContestId(participantUserId, contestId)
-                                .filter(submission -> "Accepted".equals(submission.getStatus()))
-                                .collectList()
-                                .flatMap(submissions -> {
-                                  // Group by questionId to get unique solved questions
-                                  Map<Long, Submission> solvedQuestionsMap = new HashMap<>();
-                                  for (Submission sub : submissions) {
-                                    solvedQuestionsMap.putIfAbsent(sub.getQuestionId(), sub);
-                                  }
-
-                                  // Calculate total score
-                                  final int[] totalScoreHolder = {0};
-                                  for (Long questionId : solvedQuestionsMap.keySet()) {
-                                    totalScoreHolder[0] += questionPointsMap.getOrDefault(questionId, 0);
-                                  }
-                                  final int totalScore = totalScoreHolder[0];
-                                  final int solvedCount = solvedQuestionsMap.size();
-
-                                  // Fetch user details
-                                  return userRepository.findById(participantUserId)
-                                      .map(user -> {
-                                        LeaderboardEntryDto entry = new LeaderboardEntryDto();
-                                        entry.setUserId(user.getId());
-                                        entry.setUsername(user.getUsername());
-                                        entry.setTotalScore(totalScore);
-                                        entry.setSolvedProblems(solvedCount);
-                                        return entry;
-                                      });
-                                });
-                          })
-                          .collectList()
-                          .map(leaderboardEntries -> {
-                            // Sort by score (descending), then by solved problems (descending)
-                            List<LeaderboardEntryDto> sortedEntries = leaderboardEntries.stream()
-                                .sorted((e1, e2) -> {
-                                  int scoreCompare = e2.getTotalScore().compareTo(e1.getTotalScore());
-                                  if (scoreCompare != 0) {
-                                    return scoreCompare;
-                                  }
-                                  return e2.getSolvedProblems().compareTo(e1.getSolvedProblems());
-                                })
-                                .collect(Collectors.toList());
-
-                            // Assign ranks and take top 5
-                            AtomicInteger rank = new AtomicInteger(1);
-                            List<LeaderboardEntryDto> top5 = sortedEntries.stream()
-                                .peek(entry -> entry.setRank(rank.getAndIncrement()))
-                                .limit(5)
-                                .collect(Collectors.toList());
-
-                            ContestLeaderboardResponse response = new ContestLeaderboardResponse();
-                            response.setContestId(contest.getId());
-                            response.setContestName(contest.getName());
-                            response.setLeaderboard(top5);
-
-                            return response;
-                          });
-                    });
-              });
+        .flatMap(contest -> topEntries(contestId)
+            .map(entries -> {
+              ContestLeaderboardResponse response = new ContestLeaderboardResponse();
+              response.setContestId(contest.getId());
+              response.setContestName(contest.getName());
+              response.setLeaderboard(entries);
+              return response;
+            }));
+  }
+
+  /**
+   * Top of the standings from the Redis leaderboard, or from the database if it is disabled or
+   * unavailable
+   */
+  private Mono<List<LeaderboardEntryDto>> topEntries(Long contestId) {
+    return pageOfEntries(contestId, 0, LEADERBOARD_SIZE);
+  }
+
+  private Mono<List<LeaderboardEntryDto>> pageOfEntries(Long contestId, long offset, int limit) {
+    Mono<List<LeaderboardEntryDto>> fromDatabase = userContestRepository.findStandings(contestId, offset, limit)
+        .collectList();
+    if (!leaderboardStore.isEnabled()) {
+      return fromDatabase;
+    }
+    return leaderboardStore.top(contestId, offset, limit)
+        .flatMap(this::toEntries)
+        .onErrorResume(e -> {
+          logger.warn("Failed to read the leaderboard of contest {} from Redis, computing it: {}", contestId, e.getMessage());
+          return fromDatabase;
         });
   }
-}
\ No newline at end of file
+
+  private Mono<List<LeaderboardEntryDto>> toEntries(List<LeaderboardStore.Standing> standings) {
+    List<Long> userIds = standings.stream().map(LeaderboardStore.Standing::userId).toList();
+    return userRepository.findAllById(userIds)
+        .collectMap(User::getId, User::getUsername)
+        .map(usernames -> standings.stream()
+            .map(standing -> new LeaderboardEntryDto(standing.userId(), usernames.get(standing.userId()),
+                standing.points(), standing.solved(), (int) standing.rank()))
+            .collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,146 @@
+package com.crucible.platform.v1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import com.crucible.platform.v1.dto.contest.ContestLeaderboardResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces leaderboard refreshes per contest, so that a burst of accepted submissions costs
+ * one recomputation and one push per {@code interval} instead of one each.
+ *
+ * A request on a quiet contest is published right away. Requests arriving while a refresh is
+ * waiting or running only replace the snapshot to compute, and the next refresh starts no
+ * sooner than {@code interval} after the previous one started. Callers never wait for the
+ * refresh.
+ */
+@Service
+public class LeaderboardBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardBroadcaster.class);
+
+    private final LeaderboardSseService leaderboardSseService;
+    private final long intervalNanos;
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final Counter published;
+    private final Counter coalesced;
+    private final Counter failed;
+
+    private volatile boolean closed;
+
+    public LeaderboardBroadcaster(
+            LeaderboardSseService leaderboardSseService,
+            MeterRegistry meterRegistry,
+            @Value("${crucible.leaderboard.broadcast.interval}") Duration interval) {
+        this.leaderboardSseService = leaderboardSseService;
+        this.intervalNanos = interval.toNanos();
+        this.published = counter(meterRegistry, "published");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.failed = counter(meterRegistry, "failed");
+    }
+
+    /**
+     * Refresh state of one contest; guarded by itself
+     */
+    private static class Slot {
+
+        Mono<ContestLeaderboardResponse> pending;
+        boolean scheduled;
+        long lastStartedAt = System.nanoTime() - Long.MAX_VALUE / 2;
+        Disposable timer;
+    }
+
+    /**
+     * Publish {@code snapshot} to the contest's subscribers once the contest's interval allows.
+     * {@code snapshot} is subscribed to then, not now, and is dropped if a newer request
+     * replaces it first.
+     */
+    public void requestBroadcast(Long contestId, Mono<ContestLeaderboardResponse> snapshot) {
+        Slot slot = slots.computeIfAbsent(contestId, id -> new Slot());
+        synchronized (slot) {
+            boolean replaced = slot.pending != null;
+            slot.pending = snapshot;
+            if (slot.scheduled) {
+                if (replaced) {
+                    coalesced.increment();
+                }
+                return;
+            }
+            slot.scheduled = true;
+            schedule(contestId, slot);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        slots.values().forEach(slot -> {
+            synchronized (slot) {
+                if (slot.timer != null) {
+                    slot.timer.dispose();
+                }
+            }
+        });
+    }
+
+    /**
+     * Start the next refresh once the interval since the last one has passed. Called with the
+     * slot locked.
+     */
+    private void schedule(Long contestId, Slot slot) {
+        long delay = Math.max(0, slot.lastStartedAt + intervalNanos - System.nanoTime());
+        slot.timer = Mono.delay(Duration.ofNanos(delay))
+            .subscribe(tick -> refresh(contestId, slot));
+    }
+
+    private void refresh(Long contestId, Slot slot) {
+        Mono<ContestLeaderboardResponse> snapshot;
+        synchronized (slot) {
+            snapshot = slot.pending;
+            slot.pending = null;
+            slot.lastStartedAt = System.nanoTime();
+            if (closed || snapshot == null) {
+                slot.scheduled = false;
+                return;
+            }
+        }
+        snapshot
+            .flatMap(response -> leaderboardSseService.publish(contestId, response))
+            .doOnSuccess(ignored -> published.increment())
+            .onErrorResume(e -> {
+                failed.increment();
+                logger.warn("Failed to refresh the leaderboard of contest {}: {}", contestId, e.getMessage());
+                return Mono.empty();
+            })
+            .doFinally(signal -> {
+                synchronized (slot) {
+                    // Requests made meanwhile are served by one more refresh
+                    if (slot.pending != null && !closed) {
+                        schedule(contestId, slot);
+                    } else {
+                        slot.scheduled = false;
+                    }
+                }
+            })
+            .subscribe();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("crucible.leaderboard.broadcasts")
+            .description("Leaderboard refresh requests by outcome")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,29 @@
+package com.crucible.platform.v1.service;
+
+/**
+ * Reads the score a participant has in a contest's Redis ranking, which packs points, solved
+ * questions and the time of the latest first solve into one integer:
+ * {@code points * 2^33 + solved * 2^23 + (2^23 - 1 - seconds since contest start)}.
+ *
+ * More points, then more solves, then an earlier last solve rank higher. The score stays
+ * below 2^53, so the sorted set's double holds it exactly. Scores are only written by
+ * {@code redis/leaderboard_record.lua}; the two have to be changed together.
+ */
+final class LeaderboardScore {
+
+    static final long POINTS = 1L << 33;
+    static final long SOLVED = 1L << 23;
+    static final long MAX_ELAPSED_SECONDS = SOLVED - 1;
+    static final int MAX_SOLVED = 1023;
+
+    private LeaderboardScore() {
+    }
+
+    static int points(double score) {
+        return (int) ((long) score / POINTS);
+    }
+
+    static int solved(double score) {
+        return (int) ((long) score / SOLVED % (MAX_SOLVED + 1));
+    }
+}
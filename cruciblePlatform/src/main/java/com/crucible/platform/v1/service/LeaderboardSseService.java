@@ -2,43 +2,225 @@ package com.crucible.platform.v1.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+import tools.jackson.databind.json.JsonMapper;
 
 import com.crucible.platform.v1.dto.contest.ContestLeaderboardResponse;
+import com.crucible.platform.v1.dto.contest.LeaderboardEntryDto;
+import com.crucible.platform.v1.dto.contest.LeaderboardEvent;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Keeps one hot, replay-last-1 sink per contest so new SSE subscribers get the current
- * leaderboard immediately and every subsequent update is pushed to all connected clients.
+ * Keeps one hot, replay-last-1 sink per contest with SSE subscribers on this node, so new
+ * subscribers get the current leaderboard immediately and every subsequent update is pushed to
+ * all connected clients. The sink is dropped with its last subscriber; updates of contests
+ * nobody here watches are ignored.
+ *
+ * Updates are numbered per contest and diffed against the previous one once, as they come in.
+ * A subscriber is sent a full snapshot first, then only deltas: new entrants, changed scores,
+ * changed ranks and removed entries. A subscriber that skipped an update, e.g. because it
+ * couldn't keep up, is sent a snapshot instead of the next delta, and so is everyone every
+ * {@code snapshotEvery} updates. Clients that see a gap in the sequence numbers anyway can
+ * resync by reconnecting.
+ *
+ * With {@code crucible.leaderboard.fan-out} set to redis, SSE clients may be connected to any
+ * node: an update is published once to the contest's Redis channel instead, and every node,
+ * the publishing one included, relays it into its local sink. Redis delivers a channel's
+ * messages in order, so all nodes push the same sequence of updates. An update that can't be
+ * published reaches this node's clients only.
  */
 @Service
 public class LeaderboardSseService {
 
   private static final Logger logger = LoggerFactory.getLogger(LeaderboardSseService.class);
 
-  private final Map<Long, Sinks.Many<ContestLeaderboardResponse>> sinks = new ConcurrentHashMap<>();
+  private static final String CHANNEL_PREFIX = "crucible:leaderboard-updates:";
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final JsonMapper jsonMapper;
+  private final boolean distributed;
+  private final int snapshotEvery;
+  private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+  private Disposable relay;
+
+  public LeaderboardSseService(ReactiveStringRedisTemplate redisTemplate, JsonMapper jsonMapper,
+      @Value("${crucible.leaderboard.fan-out}") String fanOut,
+      @Value("${crucible.leaderboard.stream.snapshot-every}") int snapshotEvery) {
+    this.redisTemplate = redisTemplate;
+    this.jsonMapper = jsonMapper;
+    this.distributed = "redis".equalsIgnoreCase(fanOut);
+    this.snapshotEvery = Math.max(snapshotEvery, 1);
+  }
+
+  /**
+   * Sink and last update of one contest; guarded by itself, except for the subscriber count,
+   * which only changes inside the channel map's compute
+   */
+  private static class Channel {
+
+    final Sinks.Many<Update> sink = Sinks.many().replay().limit(1);
+    int subscribers;
+    ContestLeaderboardResponse last;
+    long seq;
+    int deltasSinceSnapshot;
+  }
+
+  /**
+   * An update as a snapshot, and as a delta from the previous one unless everyone is due a
+   * snapshot
+   */
+  private record Update(long seq, LeaderboardEvent snapshot, LeaderboardEvent delta) {
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startRelay() {
+    if (!distributed) {
+      return;
+    }
+    relay = redisTemplate.listenToPattern(CHANNEL_PREFIX + "*")
+        .doOnNext(message -> relay(message.getChannel(), message.getMessage()))
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+            .doBeforeRetry(signal -> logger.warn("Leaderboard update channel lost, reconnecting: {}",
+                signal.failure().getMessage())))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stopRelay() {
+    if (relay != null) {
+      relay.dispose();
+    }
+  }
+
+  public Flux<LeaderboardEvent> subscribe(Long contestId) {
+    return Flux.defer(() -> {
+      Channel channel = channels.compute(contestId, (id, existing) -> {
+        Channel joined = existing != null ? existing : new Channel();
+        joined.subscribers++;
+        return joined;
+      });
+      // Seq of the last update sent to this subscriber
+      AtomicLong lastSent = new AtomicLong(-1);
+      return channel.sink.asFlux()
+          .map(update -> {
+            boolean follows = update.delta() != null && update.seq() == lastSent.get() + 1;
+            lastSent.set(update.seq());
+            return follows ? update.delta() : update.snapshot();
+          })
+          .doFinally(signal -> channels.computeIfPresent(contestId,
+              (id, existing) -> existing == channel && --existing.subscribers == 0 ? null : existing));
+    });
+  }
+
+  /**
+   * Push an update to the contest's subscribers, on every node in redis fan-out mode
+   */
+  public Mono<Void> publish(Long contestId, ContestLeaderboardResponse response) {
+    if (!distributed) {
+      return Mono.fromRunnable(() -> emit(contestId, response));
+    }
+    return Mono.fromCallable(() -> jsonMapper.writeValueAsString(response))
+        .flatMap(json -> redisTemplate.convertAndSend(CHANNEL_PREFIX + contestId, json))
+        .then()
+        .onErrorResume(e -> {
+          logger.warn("Failed to publish leaderboard update for contest {} to other nodes: {}", contestId,
+              e.getMessage());
+          return Mono.fromRunnable(() -> emit(contestId, response));
+        });
+  }
 
-  public Flux<ContestLeaderboardResponse> subscribe(Long contestId) {
-    return sinkFor(contestId).asFlux();
+  private void relay(String channel, String json) {
+    Long contestId;
+    ContestLeaderboardResponse response;
+    try {
+      contestId = Long.valueOf(channel.substring(CHANNEL_PREFIX.length()));
+      response = jsonMapper.readValue(json, ContestLeaderboardResponse.class);
+    } catch (RuntimeException e) {
+      logger.warn("Ignoring malformed leaderboard update on {}: {}", channel, e.getMessage());
+      return;
+    }
+    emit(contestId, response);
   }
 
-  public void publish(Long contestId, ContestLeaderboardResponse response) {
-    Sinks.Many<ContestLeaderboardResponse> sink = sinkFor(contestId);
+  private void emit(Long contestId, ContestLeaderboardResponse response) {
+    // Contests nobody here watches get their standings when someone subscribes
+    Channel channel = channels.get(contestId);
+    if (channel == null) {
+      return;
+    }
     // Serialize emissions per-contest: Sinks.Many requires non-concurrent tryEmitNext calls,
-    // and multiple submissions for the same contest can be graded at the same time.
-    synchronized (sink) {
-      Sinks.EmitResult result = sink.tryEmitNext(response);
+    // and updates may be published and relayed at the same time. Also keeps deltas in order.
+    synchronized (channel) {
+      LeaderboardEvent delta = channel.last != null
+          && Objects.equals(channel.last.getContestName(), response.getContestName())
+          ? diff(channel.last.getLeaderboard(), response.getLeaderboard())
+          : null;
+      if (delta != null && delta.getEntries().isEmpty() && delta.getRanks().isEmpty() && delta.getRemoved().isEmpty()) {
+        return;
+      }
+      long seq = ++channel.seq;
+      if (delta == null || channel.deltasSinceSnapshot >= snapshotEvery) {
+        delta = null;
+        channel.deltasSinceSnapshot = 0;
+      } else {
+        delta.setContestId(contestId);
+        delta.setSeq(seq);
+        channel.deltasSinceSnapshot++;
+      }
+      channel.last = response;
+      LeaderboardEvent snapshot = new LeaderboardEvent(LeaderboardEvent.SNAPSHOT, contestId, seq,
+          response.getContestName(), response.getLeaderboard(), null, null, null);
+      Sinks.EmitResult result = channel.sink.tryEmitNext(new Update(seq, snapshot, delta));
       if (result.isFailure()) {
         logger.warn("Failed to publish leaderboard update for contest {}: {}", contestId, result);
       }
     }
   }
 
-  private Sinks.Many<ContestLeaderboardResponse> sinkFor(Long contestId) {
-    return sinks.computeIfAbsent(contestId, id -> Sinks.many().replay().limit(1));
+  /**
+   * Changes from one leaderboard to the next, without contest id and seq
+   */
+  private static LeaderboardEvent diff(List<LeaderboardEntryDto> previous, List<LeaderboardEntryDto> current) {
+    Map<Long, LeaderboardEntryDto> before = new HashMap<>();
+    if (previous != null) {
+      previous.forEach(entry -> before.put(entry.getUserId(), entry));
+    }
+    List<LeaderboardEntryDto> entries = new ArrayList<>();
+    Map<Long, Integer> ranks = new LinkedHashMap<>();
+    if (current != null) {
+      for (LeaderboardEntryDto entry : current) {
+        LeaderboardEntryDto old = before.remove(entry.getUserId());
+        if (old == null || !Objects.equals(old.getTotalScore(), entry.getTotalScore())
+            || !Objects.equals(old.getSolvedProblems(), entry.getSolvedProblems())
+            || !Objects.equals(old.getUsername(), entry.getUsername())) {
+          entries.add(entry);
+        } else if (!Objects.equals(old.getRank(), entry.getRank())) {
+          ranks.put(entry.getUserId(), entry.getRank());
+        }
+      }
+    }
+    return new LeaderboardEvent(LeaderboardEvent.DELTA, null, null, null, null, entries, ranks,
+        new ArrayList<>(before.keySet()));
   }
 }
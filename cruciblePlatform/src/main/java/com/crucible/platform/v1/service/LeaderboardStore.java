@@ -0,0 +1,274 @@
+package com.crucible.platform.v1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+
+import com.crucible.platform.v1.entity.Contest;
+import com.crucible.platform.v1.entity.Submission;
+import com.crucible.platform.v1.repository.ContestRepository;
+import com.crucible.platform.v1.repository.QuestionRepository;
+import com.crucible.platform.v1.repository.SubmissionRepository;
+import com.crucible.platform.v1.repository.UserContestRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contest standings kept in Redis and shared by all nodes, so that an accepted submission
+ * updates one participant's entry instead of recomputing the whole leaderboard.
+ *
+ * Each contest has a sorted set of its participants, scored so that the order is points,
+ * then solved questions, then the earlier latest first solve (see {@link LeaderboardScore}),
+ * and a hash of the earliest solve time of every question each participant solved, which
+ * makes recording a solve idempotent and independent of the order verdicts come in. Both are
+ * updated atomically by one script per accepted submission, and always expire together. The top of the standings and the rank of one participant are
+ * O(log n) reads.
+ *
+ * The database stays the source of truth. A contest whose standings are missing or expired is
+ * rebuilt from it on the next read. Changes that alter past scores, such as rejudges or new
+ * question points, {@link #invalidate(Long) invalidate} the standings, which moves a
+ * generation counter on so that a rebuild racing with the invalidation stops writing.
+ * Write failures are logged and otherwise ignored; read failures are left to the caller.
+ */
+@Service
+public class LeaderboardStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardStore.class);
+
+    private static final String KEY_PREFIX = "crucible:leaderboard:";
+    private static final int REBUILD_CONCURRENCY = 64;
+
+    private static final RedisScript<Long> RECORD =
+        RedisScript.of(new ClassPathResource("redis/leaderboard_record.lua"), Long.class);
+    private static final RedisScript<Long> MARK_READY =
+        RedisScript.of(new ClassPathResource("redis/leaderboard_mark_ready.lua"), Long.class);
+    private static final RedisScript<Long> INVALIDATE =
+        RedisScript.of(new ClassPathResource("redis/leaderboard_invalidate.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ContestRepository contestRepository;
+    private final QuestionRepository questionRepository;
+    private final SubmissionRepository submissionRepository;
+    private final UserContestRepository userContestRepository;
+    private final boolean enabled;
+    private final String ttlSeconds;
+
+    // Rebuilds running on this node, so that concurrent reads of a missing contest share one
+    private final Map<Long, Mono<Void>> rebuilds = new ConcurrentHashMap<>();
+
+    public LeaderboardStore(
+            ReactiveStringRedisTemplate redisTemplate,
+            ContestRepository contestRepository,
+            QuestionRepository questionRepository,
+            SubmissionRepository submissionRepository,
+            UserContestRepository userContestRepository,
+            @Value("${crucible.leaderboard.redis.enabled}") boolean enabled,
+            @Value("${crucible.leaderboard.redis.ttl}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.contestRepository = contestRepository;
+        this.questionRepository = questionRepository;
+        this.submissionRepository = submissionRepository;
+        this.userContestRepository = userContestRepository;
+        this.enabled = enabled;
+        this.ttlSeconds = String.valueOf(ttl.toSeconds());
+    }
+
+    /**
+     * A participant's place in the standings. Participants with equal scores share a rank.
+     */
+    public record Standing(Long userId, int points, int solved, long rank) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Standings from position {@code offset} (0-based), at most {@code limit} of them
+     */
+    public Mono<List<Standing>> top(Long contestId, long offset, int limit) {
+        String ranking = key(contestId, "ranking");
+        return ensureLoaded(contestId)
+            .thenMany(redisTemplate.opsForZSet().reverseRangeWithScores(ranking, Range.closed(offset, offset + limit - 1)))
+            .collectList()
+            .flatMap(tuples -> {
+                if (tuples.isEmpty()) {
+                    return Mono.just(List.<Standing>of());
+                }
+                return countAbove(ranking, tuples.get(0).getScore()).map(above -> {
+                    List<Standing> standings = new ArrayList<>(tuples.size());
+                    long rank = above + 1;
+                    for (int i = 0; i < tuples.size(); i++) {
+                        ZSetOperations.TypedTuple<String> tuple = tuples.get(i);
+                        // Everyone listed before a lower score ranks above it
+                        if (i > 0 && tuple.getScore() < tuples.get(i - 1).getScore()) {
+                            rank = offset + i + 1;
+                        }
+                        standings.add(toStanding(tuple.getValue(), tuple.getScore(), rank));
+                    }
+                    return standings;
+                });
+            });
+    }
+
+    /**
+     * One participant's standing; empty if they don't take part in the contest
+     */
+    public Mono<Standing> standing(Long contestId, Long userId) {
+        String ranking = key(contestId, "ranking");
+        return ensureLoaded(contestId)
+            .then(redisTemplate.opsForZSet().score(ranking, String.valueOf(userId)))
+            .flatMap(score -> countAbove(ranking, score)
+                .map(above -> toStanding(String.valueOf(userId), score, above + 1)));
+    }
+
+    /**
+     * Add a new participant with no solves
+     */
+    public Mono<Void> addParticipant(Long contestId, Long userId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return record(contestId, "", userId, "", 0, 0)
+            .then()
+            .onErrorResume(e -> {
+                logger.warn("Failed to add user {} to the leaderboard of contest {}: {}", userId, contestId, e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Record an accepted contest submission. Only the earliest accepted submission of a
+     * question counts, even when a later one was recorded first.
+     */
+    public Mono<Void> recordAccepted(Submission submission) {
+        if (!enabled || submission.getContestId() == null) {
+            return Mono.empty();
+        }
+        Long contestId = submission.getContestId();
+        return Mono.zip(contestRepository.findById(contestId), questionRepository.findById(submission.getQuestionId()))
+            .flatMap(tuple -> record(contestId, "", submission.getUserId(), String.valueOf(submission.getQuestionId()),
+                points(tuple.getT2().getPoints()), elapsedSeconds(tuple.getT1(), submission.getCreatedAt())))
+            .doOnNext(changed -> {
+                if (changed > 0) {
+                    logger.debug("Recorded solve of question {} by user {} in contest {}",
+                        submission.getQuestionId(), submission.getUserId(), contestId);
+                }
+            })
+            .then()
+            .onErrorResume(e -> {
+                logger.warn("Failed to record submission {} in the leaderboard of contest {}: {}",
+                    submission.getId(), contestId, e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Drop the contest's standings; the next read rebuilds them from the database
+     */
+    public Mono<Void> invalidate(Long contestId) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return redisTemplate.execute(INVALIDATE, keys(contestId), List.of(ttlSeconds))
+            .then()
+            .onErrorResume(e -> {
+                logger.warn("Failed to invalidate the leaderboard of contest {}: {}", contestId, e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> ensureLoaded(Long contestId) {
+        return redisTemplate.hasKey(key(contestId, "ready"))
+            .flatMap(ready -> ready ? Mono.<Void>empty() : rebuilds.computeIfAbsent(contestId, id -> rebuild(id)
+                .doFinally(signal -> rebuilds.remove(id))
+                .cache()));
+    }
+
+    /**
+     * Load every participant and first solve of the contest. Recording is idempotent, so
+     * solves recorded concurrently by graders, or by a rebuild on another node, are harmless.
+     */
+    private Mono<Void> rebuild(Long contestId) {
+        long startedAt = System.nanoTime();
+        return redisTemplate.opsForValue().get(key(contestId, "generation"))
+            .defaultIfEmpty("0")
+            .flatMap(generation -> contestRepository.findById(contestId)
+                .flatMap(contest -> userContestRepository.findByContestId(contestId)
+                    .flatMap(participant -> record(contestId, generation, participant.getUserId(), "", 0, 0),
+                        REBUILD_CONCURRENCY)
+                    .count()
+                    .zipWhen(participants -> submissionRepository.findContestSolves(contestId)
+                        .flatMap(solve -> record(contestId, generation, solve.getUserId(),
+                            String.valueOf(solve.getQuestionId()), points(solve.getPoints()),
+                            elapsedSeconds(contest, solve.getSolvedAt())), REBUILD_CONCURRENCY)
+                        .count())
+                    .flatMap(counts -> redisTemplate.execute(MARK_READY, keys(contestId), List.of(generation, ttlSeconds))
+                        .next()
+                        .doOnNext(marked -> {
+                            if (marked > 0) {
+                                logger.info("Rebuilt the leaderboard of contest {}: {} participants, {} solves in {} ms",
+                                    contestId, counts.getT1(), counts.getT2(),
+                                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+                            } else {
+                                // The next read rebuilds it again
+                                logger.info("Leaderboard of contest {} was invalidated while rebuilding", contestId);
+                            }
+                        }))))
+            .then();
+    }
+
+    private Mono<Long> record(Long contestId, String generation, Long userId, String questionId, int points,
+                              long elapsedSeconds) {
+        return redisTemplate.execute(RECORD, List.of(key(contestId, "ranking"), key(contestId, "solves"),
+                    key(contestId, "generation")),
+                List.of(generation, String.valueOf(userId), questionId, String.valueOf(points),
+                    String.valueOf(elapsedSeconds), ttlSeconds))
+            .next();
+    }
+
+    private Mono<Long> countAbove(String ranking, double score) {
+        return redisTemplate.opsForZSet().count(ranking,
+            Range.of(Range.Bound.exclusive(score), Range.Bound.unbounded()));
+    }
+
+    private static Standing toStanding(String userId, double score, long rank) {
+        return new Standing(Long.valueOf(userId), LeaderboardScore.points(score), LeaderboardScore.solved(score), rank);
+    }
+
+    private static int points(Integer points) {
+        return points != null ? Math.max(points, 0) : 0;
+    }
+
+    private static long elapsedSeconds(Contest contest, LocalDateTime solvedAt) {
+        LocalDateTime at = solvedAt != null ? solvedAt : LocalDateTime.now();
+        long seconds = Duration.between(contest.getStartTime(), at).toSeconds();
+        return Math.min(Math.max(seconds, 0), LeaderboardScore.MAX_ELAPSED_SECONDS);
+    }
+
+    /**
+     * Keys of a contest's ready marker, generation, ranking and solves hash, in the order the
+     * mark-ready and invalidate scripts expect. Hash-tagged so they share a cluster slot.
+     */
+    private static List<String> keys(Long contestId) {
+        return List.of(key(contestId, "ready"), key(contestId, "generation"), key(contestId, "ranking"),
+            key(contestId, "solves"));
+    }
+
+    private static String key(Long contestId, String name) {
+        return KEY_PREFIX + "{" + contestId + "}:" + name;
+    }
+}
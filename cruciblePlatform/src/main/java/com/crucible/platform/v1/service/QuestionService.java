@@ -14,8 +14,10 @@ import com.crucible.platform.v1.repository.ContestAdminRepository;
 import com.crucible.platform.v1.repository.ContestRepository;
 import com.crucible.platform.v1.repository.QuestionRepository;
 import com.crucible.platform.v1.repository.TestCaseRepository;
+import com.crucible.platform.v1.storage.TestDataStore;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Service
 public class QuestionService {
@@ -24,15 +26,21 @@ public class QuestionService {
     private final ContestRepository contestRepository;
     private final ContestAdminRepository contestAdminRepository;
     private final TestCaseRepository testCaseRepository;
+    private final TestDataStore testDataStore;
+    private final LeaderboardStore leaderboardStore;
 
     public QuestionService(QuestionRepository questionRepository,
                            ContestRepository contestRepository,
                            ContestAdminRepository contestAdminRepository,
-                           TestCaseRepository testCaseRepository) {
+                           TestCaseRepository testCaseRepository,
+                           TestDataStore testDataStore,
+                           LeaderboardStore leaderboardStore) {
         this.questionRepository = questionRepository;
         this.contestRepository = contestRepository;
         this.contestAdminRepository = contestAdminRepository;
         this.testCaseRepository = testCaseRepository;
+        this.testDataStore = testDataStore;
+        this.leaderboardStore = leaderboardStore;
     }
 
     public Mono<Question> createQuestion(QuestionCreateDTO questionDTO, Long creatorId) {
@@ -46,6 +54,11 @@ public class QuestionService {
                     creatorId,
                     questionDTO.getContestId(),
                     false,
+                    questionDTO.getJudgingPolicy(),
+                    questionDTO.getChecker(),
+                    questionDTO.getCheckerEpsilon(),
+                    questionDTO.getTimeLimitMs(),
+                    questionDTO.getMemoryLimitMb(),
                     LocalDateTime.now(),
                     LocalDateTime.now()
             );
@@ -108,6 +121,7 @@ public class QuestionService {
                 .flatMap(question -> 
                     testCaseRepository.findByQuestionIdAndIsSample(questionId, true)
                         .take(3) // Limit to max 3 sample test cases
+                        .concatMap(testDataStore::load)
                         .map(testCase -> new TestCaseDto(
                             testCase.getId(),
                             testCase.getInput(),
@@ -144,11 +158,21 @@ public class QuestionService {
     }
 
     private Mono<Question> updateQuestionData(Question question, QuestionUpdateDTO questionDTO) {
+        boolean pointsChanged = !Objects.equals(question.getPoints(), questionDTO.getPoints());
         question.setTitle(questionDTO.getTitle());
         question.setMarkdownDescription(questionDTO.getMarkdownDescription());
         question.setPoints(questionDTO.getPoints());
+        question.setJudgingPolicy(questionDTO.getJudgingPolicy());
+        question.setChecker(questionDTO.getChecker());
+        question.setCheckerEpsilon(questionDTO.getCheckerEpsilon());
+        question.setTimeLimitMs(questionDTO.getTimeLimitMs());
+        question.setMemoryLimitMb(questionDTO.getMemoryLimitMb());
         question.setUpdatedAt(LocalDateTime.now());
-        return questionRepository.save(question);
+        // Points already scored on the question change with it
+        return questionRepository.save(question)
+                .flatMap(saved -> pointsChanged
+                        ? leaderboardStore.invalidate(saved.getContestId()).thenReturn(saved)
+                        : Mono.just(saved));
     }
 
     public Mono<Void> deleteQuestion(Long questionId, Long userId) {
@@ -159,7 +183,7 @@ public class QuestionService {
                             .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
                             .flatMap(contest -> {
                                 if (contest.getCreatorId().equals(userId)) {
-                                    return questionRepository.deleteById(questionId);
+                                    return deleteQuestionAndRescore(question);
                                 }
 
                                 return contestAdminRepository
@@ -167,7 +191,7 @@ public class QuestionService {
                                         .hasElement()
                                         .flatMap(isAdmin -> {
                                             if (isAdmin) {
-                                                return questionRepository.deleteById(questionId);
+                                                return deleteQuestionAndRescore(question);
                                             } else {
                                                 return Mono.error(new ForbiddenException("User is not authorized to delete this question"));
                                             }
@@ -175,4 +199,9 @@ public class QuestionService {
                             });
                 });
     }
-}
\ No newline at end of file
+
+    private Mono<Void> deleteQuestionAndRescore(Question question) {
+        return questionRepository.deleteById(question.getId())
+                .then(leaderboardStore.invalidate(question.getContestId()));
+    }
+}
@@ -0,0 +1,385 @@
+package com.crucible.platform.v1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.crucible.platform.v1.dto.ResponseEntity;
+import com.crucible.platform.v1.dto.admin.RejudgeProgress;
+import com.crucible.platform.v1.dto.admin.RejudgeRequest;
+import com.crucible.platform.v1.entity.Contest;
+import com.crucible.platform.v1.entity.RejudgeJob;
+import com.crucible.platform.v1.entity.Submission;
+import com.crucible.platform.v1.exceptions.BadRequestException;
+import com.crucible.platform.v1.exceptions.ForbiddenException;
+import com.crucible.platform.v1.exceptions.NotFoundException;
+import com.crucible.platform.v1.repository.ContestAdminRepository;
+import com.crucible.platform.v1.repository.ContestRepository;
+import com.crucible.platform.v1.repository.QuestionRepository;
+import com.crucible.platform.v1.repository.RejudgeJobRepository;
+import com.crucible.platform.v1.repository.SubmissionRepository;
+import com.crucible.platform.v1.repository.UserContestRepository;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk rejudge of a contest or one of its questions, e.g. after a wrong test case was fixed.
+ *
+ * A job regrades every submission of its scope up to the newest one at the time it was
+ * started, in id order, through the normal judging pipeline at {@code REJUDGE} priority and
+ * at most {@code maxPerSecond} submissions per second, so live judging keeps its slots.
+ * Progress is checkpointed to rejudge_jobs every {@code checkpointEvery} submissions; a paused,
+ * failed or abandoned job resumes from its checkpoint. When the job completes or is paused,
+ * user_contests is recomputed from the new verdicts in a single statement, the
+ * leaderboard is rebuilt and pushed again.
+ */
+@Service
+public class RejudgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejudgeService.class);
+
+    // Checkpoint outcome once another run owns the job
+    private static final String TAKEN_OVER = "";
+
+    private final RejudgeJobRepository rejudgeJobRepository;
+    private final SubmissionRepository submissionRepository;
+    private final QuestionRepository questionRepository;
+    private final ContestRepository contestRepository;
+    private final ContestAdminRepository contestAdminRepository;
+    private final UserContestRepository userContestRepository;
+    private final SubmissionService submissionService;
+    private final ContestService contestService;
+    private final LeaderboardStore leaderboardStore;
+    private final double maxPerSecond;
+    private final int concurrency;
+    private final int pageSize;
+    private final int checkpointEvery;
+    private final Duration staleAfter;
+    private final Duration pollInterval;
+
+    // Jobs driven by this node and the live progress of each
+    private final Map<Long, Disposable> runs = new ConcurrentHashMap<>();
+    private final Map<Long, Sinks.Many<RejudgeProgress>> sinks = new ConcurrentHashMap<>();
+
+    public RejudgeService(
+            RejudgeJobRepository rejudgeJobRepository,
+            SubmissionRepository submissionRepository,
+            QuestionRepository questionRepository,
+            ContestRepository contestRepository,
+            ContestAdminRepository contestAdminRepository,
+            UserContestRepository userContestRepository,
+            SubmissionService submissionService,
+            ContestService contestService,
+            LeaderboardStore leaderboardStore,
+            @Value("${crucible.rejudge.max-per-second}") double maxPerSecond,
+            @Value("${crucible.rejudge.concurrency}") int concurrency,
+            @Value("${crucible.rejudge.page-size}") int pageSize,
+            @Value("${crucible.rejudge.checkpoint-every}") int checkpointEvery,
+            @Value("${crucible.rejudge.stale-after}") Duration staleAfter,
+            @Value("${crucible.judge.events.poll-interval}") Duration pollInterval) {
+        this.rejudgeJobRepository = rejudgeJobRepository;
+        this.submissionRepository = submissionRepository;
+        this.questionRepository = questionRepository;
+        this.contestRepository = contestRepository;
+        this.contestAdminRepository = contestAdminRepository;
+        this.userContestRepository = userContestRepository;
+        this.submissionService = submissionService;
+        this.contestService = contestService;
+        this.leaderboardStore = leaderboardStore;
+        this.maxPerSecond = maxPerSecond;
+        this.concurrency = concurrency;
+        this.pageSize = pageSize;
+        this.checkpointEvery = checkpointEvery;
+        this.staleAfter = staleAfter;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Start rejudging a question, or every question of a contest
+     */
+    public Mono<ResponseEntity<RejudgeProgress>> startRejudge(Long userId, RejudgeRequest request) {
+        Mono<Long> contestIdMono;
+        if (request.getQuestionId() != null) {
+            contestIdMono = questionRepository.findById(request.getQuestionId())
+                .switchIfEmpty(Mono.error(new NotFoundException("Question not found")))
+                .map(question -> question.getContestId());
+        } else if (request.getContestId() != null) {
+            contestIdMono = Mono.just(request.getContestId());
+        } else {
+            return Mono.error(new BadRequestException("A contestId or questionId to rejudge is required"));
+        }
+
+        return contestIdMono
+            .flatMap(contestId -> requireContestAdmin(contestId, userId))
+            .flatMap(contest -> rejudgeJobRepository.findByContestIdAndStatus(contest.getId(), RejudgeJob.RUNNING)
+                .next()
+                .flatMap(existing -> Mono.<RejudgeJob>error(new BadRequestException(
+                    "Rejudge job " + existing.getId() + " of this contest is still running")))
+                .switchIfEmpty(Mono.defer(() -> createJob(contest.getId(), request.getQuestionId(), userId))))
+            .doOnNext(this::launch)
+            .map(job -> new ResponseEntity<>(toProgress(job), "Rejudge started"));
+    }
+
+    /**
+     * Resume a paused or failed job, or a running one whose node went away, from its checkpoint
+     */
+    public Mono<ResponseEntity<RejudgeProgress>> resumeRejudge(Long userId, Long jobId) {
+        String owner = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        return findJob(jobId, userId)
+            .flatMap(job -> rejudgeJobRepository.claim(jobId, owner, now, now.minus(staleAfter))
+                .flatMap(claimed -> {
+                    if (claimed == 0) {
+                        return Mono.error(new BadRequestException("Rejudge job " + jobId + " is running or has completed"));
+                    }
+                    return rejudgeJobRepository.findById(jobId);
+                }))
+            .doOnNext(this::launch)
+            .map(job -> new ResponseEntity<>(toProgress(job), "Rejudge resumed"));
+    }
+
+    /**
+     * Pause a running job; the node driving it stops at its next checkpoint
+     */
+    public Mono<ResponseEntity<RejudgeProgress>> pauseRejudge(Long userId, Long jobId) {
+        return findJob(jobId, userId)
+            .flatMap(job -> rejudgeJobRepository.pause(jobId, LocalDateTime.now()))
+            .flatMap(paused -> {
+                if (paused == 0) {
+                    return Mono.error(new BadRequestException("Rejudge job " + jobId + " is not running"));
+                }
+                return rejudgeJobRepository.findById(jobId);
+            })
+            .map(job -> new ResponseEntity<>(toProgress(job), "Rejudge pausing"));
+    }
+
+    public Mono<ResponseEntity<RejudgeProgress>> getRejudge(Long userId, Long jobId) {
+        return findJob(jobId, userId)
+            .map(job -> new ResponseEntity<>(toProgress(job), "Rejudge job retrieved successfully"));
+    }
+
+    /**
+     * Progress of a job until it completes, fails or is paused. Live from this node while it
+     * drives the job, polled from the database otherwise.
+     */
+    public Flux<RejudgeProgress> streamRejudge(Long userId, Long jobId) {
+        return findJob(jobId, userId)
+            .flatMapMany(job -> {
+                Flux<RejudgeProgress> polled = Flux.interval(pollInterval)
+                    .concatMap(tick -> rejudgeJobRepository.findById(jobId))
+                    .map(this::toProgress);
+                Sinks.Many<RejudgeProgress> sink = sinks.get(jobId);
+                Flux<RejudgeProgress> live = sink != null ? sink.asFlux() : Flux.empty();
+                return Flux.concat(Mono.just(toProgress(job)), Flux.merge(live, polled));
+            })
+            .distinctUntilChanged(progress -> progress.getStatus() + ":" + progress.getProcessedSubmissions())
+            .takeUntil(progress -> !RejudgeJob.RUNNING.equals(progress.getStatus()));
+    }
+
+    private Mono<RejudgeJob> createJob(Long contestId, Long questionId, Long userId) {
+        Mono<Long> maxId = questionId != null
+            ? submissionRepository.findMaxIdByQuestionId(questionId)
+            : submissionRepository.findMaxIdByContestQuestions(contestId);
+        return maxId.flatMap(maxSubmissionId -> (questionId != null
+                ? submissionRepository.countByQuestionIdInRange(questionId, 0L, maxSubmissionId)
+                : submissionRepository.countByContestQuestionsInRange(contestId, 0L, maxSubmissionId))
+            .flatMap(total -> {
+                LocalDateTime now = LocalDateTime.now();
+                RejudgeJob job = new RejudgeJob();
+                job.setContestId(contestId);
+                job.setQuestionId(questionId);
+                job.setRequestedBy(userId);
+                job.setStatus(RejudgeJob.RUNNING);
+                job.setMaxSubmissionId(maxSubmissionId);
+                job.setCheckpointSubmissionId(0L);
+                job.setTotalSubmissions(total.intValue());
+                job.setProcessedSubmissions(0);
+                job.setChangedVerdicts(0);
+                job.setFailedSubmissions(0);
+                job.setOwner(UUID.randomUUID().toString());
+                job.setHeartbeatAt(now);
+                job.setCreatedAt(now);
+                job.setUpdatedAt(now);
+                return rejudgeJobRepository.save(job);
+            }))
+            .doOnNext(job -> logger.info("Rejudge job {} created for contest {}, question {}: {} submissions",
+                job.getId(), contestId, questionId, job.getTotalSubmissions()));
+    }
+
+    /**
+     * Drive the job on this node, in the background
+     */
+    private void launch(RejudgeJob job) {
+        Long jobId = job.getId();
+        Sinks.Many<RejudgeProgress> sink = Sinks.many().replay().latest();
+        sinks.put(jobId, sink);
+        Disposable.Swap run = Disposables.swap();
+        Disposable previous = runs.put(jobId, run);
+        if (previous != null) {
+            previous.dispose();
+        }
+        run.update(execute(job, sink)
+            .doFinally(signal -> {
+                runs.remove(jobId, run);
+                sinks.remove(jobId, sink);
+                synchronized (sink) {
+                    sink.tryEmitComplete();
+                }
+            })
+            .subscribe(null, e -> logger.error("Rejudge job {} stopped: {}", jobId, e.getMessage(), e)));
+    }
+
+    private Mono<Void> execute(RejudgeJob job, Sinks.Many<RejudgeProgress> sink) {
+        // Spacing between submissions that caps the throughput
+        Duration spacing = Duration.ofNanos((long) (1_000_000_000L / maxPerSecond));
+
+        Flux<Submission> submissions = page(job, job.getCheckpointSubmissionId())
+            .expand(page -> page.size() < pageSize
+                ? Mono.empty()
+                : page(job, page.get(page.size() - 1).getId()))
+            .flatMapIterable(page -> page);
+
+        return submissions
+            .delayElements(spacing)
+            .flatMapSequential(this::regrade, concurrency)
+            // Results arrive in id order, so the last one recorded is a safe checkpoint
+            .concatMap(outcome -> {
+                job.setProcessedSubmissions(job.getProcessedSubmissions() + 1);
+                if (outcome.failed()) {
+                    job.setFailedSubmissions(job.getFailedSubmissions() + 1);
+                } else if (outcome.changed()) {
+                    job.setChangedVerdicts(job.getChangedVerdicts() + 1);
+                }
+                job.setCheckpointSubmissionId(outcome.submissionId());
+                publish(sink, job);
+                return job.getProcessedSubmissions() % checkpointEvery == 0
+                    ? checkpoint(job).defaultIfEmpty(TAKEN_OVER)
+                    : Mono.just(RejudgeJob.RUNNING);
+            })
+            .takeUntil(status -> !RejudgeJob.RUNNING.equals(status))
+            .last(RejudgeJob.RUNNING)
+            .flatMap(status -> RejudgeJob.RUNNING.equals(status)
+                ? checkpoint(job).defaultIfEmpty(TAKEN_OVER)
+                : Mono.just(status))
+            .flatMap(status -> switch (status) {
+                case RejudgeJob.RUNNING -> recomputeStats(job)
+                    .then(rejudgeJobRepository.finish(job.getId(), job.getOwner(), RejudgeJob.COMPLETED,
+                        "Regraded " + job.getProcessedSubmissions() + " submissions, "
+                            + job.getChangedVerdicts() + " verdicts changed", LocalDateTime.now()))
+                    .doOnSuccess(finished -> {
+                        job.setStatus(RejudgeJob.COMPLETED);
+                        logger.info("Rejudge job {} completed: {} submissions, {} verdicts changed, {} failed",
+                            job.getId(), job.getProcessedSubmissions(), job.getChangedVerdicts(), job.getFailedSubmissions());
+                    })
+                    .then();
+                case RejudgeJob.PAUSED -> recomputeStats(job)
+                    .doOnSuccess(ignored -> {
+                        job.setStatus(RejudgeJob.PAUSED);
+                        logger.info("Rejudge job {} paused after {} submissions", job.getId(), job.getProcessedSubmissions());
+                    });
+                // Taken over by a resume elsewhere, which carries on from the checkpoint
+                default -> Mono.<Void>fromRunnable(() ->
+                    logger.info("Rejudge job {} was taken over by another run", job.getId()));
+            })
+            .onErrorResume(e -> {
+                logger.error("Rejudge job {} failed: {}", job.getId(), e.getMessage(), e);
+                job.setStatus(RejudgeJob.FAILED);
+                job.setMessage(e.getMessage());
+                return checkpoint(job)
+                    .then(rejudgeJobRepository.finish(job.getId(), job.getOwner(), RejudgeJob.FAILED,
+                        e.getMessage(), LocalDateTime.now()))
+                    .onErrorResume(ignored -> Mono.empty())
+                    .then();
+            })
+            .doFinally(signal -> publish(sink, job))
+            .then();
+    }
+
+    private record Outcome(Long submissionId, boolean changed, boolean failed) {
+    }
+
+    private Mono<Outcome> regrade(Submission submission) {
+        String previousStatus = submission.getStatus();
+        return submissionService.rejudgeSubmission(submission)
+            .map(status -> new Outcome(submission.getId(), !Objects.equals(previousStatus, status), false))
+            // Grading errors leave the previous verdict in place; the job goes on with the rest
+            .onErrorResume(e -> {
+                logger.warn("Failed to rejudge submission {}: {}", submission.getId(), e.getMessage());
+                return Mono.just(new Outcome(submission.getId(), false, true));
+            })
+            .defaultIfEmpty(new Outcome(submission.getId(), false, true));
+    }
+
+    private Mono<List<Submission>> page(RejudgeJob job, Long afterId) {
+        Flux<Submission> page = job.getQuestionId() != null
+            ? submissionRepository.findPageByQuestionId(job.getQuestionId(), afterId, job.getMaxSubmissionId(), pageSize)
+            : submissionRepository.findPageByContestQuestions(job.getContestId(), afterId, job.getMaxSubmissionId(), pageSize);
+        return page.collectList();
+    }
+
+    /**
+     * Emits the job's status as stored, or nothing if another run owns the job now
+     */
+    private Mono<String> checkpoint(RejudgeJob job) {
+        return rejudgeJobRepository.checkpoint(job.getId(), job.getOwner(), job.getCheckpointSubmissionId(),
+            job.getProcessedSubmissions(), job.getChangedVerdicts(), job.getFailedSubmissions(), LocalDateTime.now());
+    }
+
+    private Mono<Void> recomputeStats(RejudgeJob job) {
+        return userContestRepository.recomputeContestStats(job.getContestId())
+            .doOnNext(updated -> logger.info("Recomputed contest stats of {} participants of contest {}",
+                updated, job.getContestId()))
+            .then(leaderboardStore.invalidate(job.getContestId()))
+            .then(contestService.refreshAndBroadcastLeaderboard(job.getContestId()));
+    }
+
+    private void publish(Sinks.Many<RejudgeProgress> sink, RejudgeJob job) {
+        // Sinks.Many requires non-concurrent tryEmitNext calls
+        synchronized (sink) {
+            sink.tryEmitNext(toProgress(job));
+        }
+    }
+
+    private Mono<RejudgeJob> findJob(Long jobId, Long userId) {
+        return rejudgeJobRepository.findById(jobId)
+            .switchIfEmpty(Mono.error(new NotFoundException("Rejudge job not found")))
+            .flatMap(job -> requireContestAdmin(job.getContestId(), userId).thenReturn(job));
+    }
+
+    /**
+     * Only the contest creator and contest admins may rejudge
+     */
+    private Mono<Contest> requireContestAdmin(Long contestId, Long userId) {
+        return contestRepository.findById(contestId)
+            .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
+            .flatMap(contest -> {
+                if (contest.getCreatorId().equals(userId)) {
+                    return Mono.just(contest);
+                }
+                return contestAdminRepository.findByContestIdAndAdminId(contestId, userId)
+                    .hasElement()
+                    .flatMap(isAdmin -> isAdmin
+                        ? Mono.just(contest)
+                        : Mono.error(new ForbiddenException("You are not authorized to rejudge this contest")));
+            });
+    }
+
+    private RejudgeProgress toProgress(RejudgeJob job) {
+        return new RejudgeProgress(job.getId(), job.getContestId(), job.getQuestionId(), job.getStatus(),
+            job.getTotalSubmissions(), job.getProcessedSubmissions(), job.getChangedVerdicts(),
+            job.getFailedSubmissions(), job.getCheckpointSubmissionId(), job.getMessage(), LocalDateTime.now());
+    }
+}
@@ -1,34 +1,57 @@
 package com.crucible.platform.v1.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
+import reactor.util.function.Tuples;
 
-import com.crucible.platform.v1.client.PistonClient;
+import com.crucible.platform.v1.client.ExecutionBackend;
 import com.crucible.platform.v1.dto.ResponseEntity;
+import com.crucible.platform.v1.dto.submission.AdmissionStatus;
+import com.crucible.platform.v1.dto.submission.CachedVerdict;
 import com.crucible.platform.v1.dto.submission.ContestSubmitCodeRequest;
+import com.crucible.platform.v1.dto.submission.JudgeJob;
 import com.crucible.platform.v1.dto.submission.PistonExecuteRequest;
 import com.crucible.platform.v1.dto.submission.PistonExecuteResponse;
+import com.crucible.platform.v1.dto.submission.SubmissionEvent;
 import com.crucible.platform.v1.dto.submission.SubmissionResponse;
 import com.crucible.platform.v1.dto.submission.SubmitCodeRequest;
 import com.crucible.platform.v1.dto.submission.TestCaseResult;
 import com.crucible.platform.v1.entity.Question;
 import com.crucible.platform.v1.entity.Submission;
+import com.crucible.platform.v1.entity.SubmissionResult;
 import com.crucible.platform.v1.entity.TestCase;
+import com.crucible.platform.v1.entity.TestVerdict;
 import com.crucible.platform.v1.entity.UserContest;
 import com.crucible.platform.v1.entity.Contest;
 import com.crucible.platform.v1.exceptions.ForbiddenException;
+import com.crucible.platform.v1.exceptions.InternalServerErrorException;
 import com.crucible.platform.v1.exceptions.NotFoundException;
+import com.crucible.platform.v1.judge.AdmissionControl;
+import com.crucible.platform.v1.judge.CheckResult;
+import com.crucible.platform.v1.judge.Checker;
+import com.crucible.platform.v1.judge.ExecutionLimiter;
+import com.crucible.platform.v1.judge.ExecutionLimits;
+import com.crucible.platform.v1.judge.ExecutionPriority;
+import com.crucible.platform.v1.judge.JudgeQueue;
+import com.crucible.platform.v1.judge.OutputPreview;
+import com.crucible.platform.v1.judge.TestSetCache;
+import com.crucible.platform.v1.judge.VerdictCache;
 import com.crucible.platform.v1.repository.QuestionRepository;
 import com.crucible.platform.v1.repository.SubmissionRepository;
-import com.crucible.platform.v1.repository.TestCaseRepository;
+import com.crucible.platform.v1.repository.SubmissionResultRepository;
 import com.crucible.platform.v1.repository.UserContestRepository;
 import com.crucible.platform.v1.repository.ContestRepository;
+import com.crucible.platform.v1.storage.TestDataStore;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,37 +60,109 @@ import org.slf4j.LoggerFactory;
 public class SubmissionService {
     
     private final SubmissionRepository submissionRepository;
+    private final SubmissionResultRepository submissionResultRepository;
     private final QuestionRepository questionRepository;
-    private final TestCaseRepository testCaseRepository;
     private final UserContestRepository userContestRepository;
     private final ContestRepository contestRepository;
-    private final PistonClient pistonClient;
+    private final ExecutionBackend executionBackend;
     private final ContestService contestService;
+    private final LeaderboardStore leaderboardStore;
+    private final JudgeQueue judgeQueue;
+    private final ExecutionLimiter executionLimiter;
+    private final AdmissionControl admissionControl;
+    private final TestSetCache testSetCache;
+    private final VerdictCache verdictCache;
+    private final SubmissionSseService submissionSseService;
+    private final TestDataStore testDataStore;
+    private final OutputPreview outputPreview;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean asyncJudging;
+    private final boolean batchExecution;
+    private final int submissionParallelism;
+    private final String defaultJudgingPolicy;
+    private final int defaultTimeLimitMs;
+    private final int defaultMemoryLimitMb;
+    private final int maxTimeLimitMs;
+    private final Duration eventPollInterval;
 
     private static final Logger logger = LoggerFactory.getLogger(SubmissionService.class);
 
+    // Verdicts the executor's load or health can cause, never stored in the verdict cache
+    private static final Set<TestVerdict> UNCACHEABLE_VERDICTS = Set.of(
+        TestVerdict.TIME_LIMIT_EXCEEDED, TestVerdict.MEMORY_LIMIT_EXCEEDED, TestVerdict.EXECUTION_ERROR);
+
     public SubmissionService(
             SubmissionRepository submissionRepository,
+            SubmissionResultRepository submissionResultRepository,
             QuestionRepository questionRepository,
-            TestCaseRepository testCaseRepository,
             UserContestRepository userContestRepository,
             ContestRepository contestRepository,
-            PistonClient pistonClient,
-            ContestService contestService) {
+            ExecutionBackend executionBackend,
+            ContestService contestService,
+            LeaderboardStore leaderboardStore,
+            JudgeQueue judgeQueue,
+            ExecutionLimiter executionLimiter,
+            AdmissionControl admissionControl,
+            TestSetCache testSetCache,
+            VerdictCache verdictCache,
+            SubmissionSseService submissionSseService,
+            TestDataStore testDataStore,
+            OutputPreview outputPreview,
+            TransactionalOperator transactionalOperator,
+            @Value("${crucible.judge.mode}") String judgeMode,
+            @Value("${crucible.judge.batch.enabled}") boolean batchExecution,
+            @Value("${crucible.judge.concurrency.per-submission}") int submissionParallelism,
+            @Value("${crucible.judge.default-policy}") String defaultJudgingPolicy,
+            @Value("${crucible.judge.limits.time-ms}") int defaultTimeLimitMs,
+            @Value("${crucible.judge.limits.memory-mb}") int defaultMemoryLimitMb,
+            @Value("${crucible.judge.limits.max-time-ms}") int maxTimeLimitMs,
+            @Value("${crucible.judge.events.poll-interval}") Duration eventPollInterval) {
         this.submissionRepository = submissionRepository;
+        this.submissionResultRepository = submissionResultRepository;
         this.questionRepository = questionRepository;
-        this.testCaseRepository = testCaseRepository;
         this.userContestRepository = userContestRepository;
         this.contestRepository = contestRepository;
-        this.pistonClient = pistonClient;
+        this.executionBackend = executionBackend;
         this.contestService = contestService;
+        this.leaderboardStore = leaderboardStore;
+        this.judgeQueue = judgeQueue;
+        this.executionLimiter = executionLimiter;
+        this.admissionControl = admissionControl;
+        this.testSetCache = testSetCache;
+        this.verdictCache = verdictCache;
+        this.submissionSseService = submissionSseService;
+        this.testDataStore = testDataStore;
+        this.outputPreview = outputPreview;
+        this.transactionalOperator = transactionalOperator;
+        this.asyncJudging = "async".equalsIgnoreCase(judgeMode);
+        this.batchExecution = batchExecution;
+        this.submissionParallelism = submissionParallelism;
+        this.defaultJudgingPolicy = defaultJudgingPolicy;
+        this.defaultTimeLimitMs = defaultTimeLimitMs;
+        this.defaultMemoryLimitMb = defaultMemoryLimitMb;
+        this.maxTimeLimitMs = maxTimeLimitMs;
+        this.eventPollInterval = eventPollInterval;
     }
 
     /**
      * Submit code for a regular (public) problem
      */
     public Mono<ResponseEntity<SubmissionResponse>> submitCode(Long userId, SubmitCodeRequest request) {
-        return questionRepository.findById(request.getQuestionId())
+        return submitCode(userId, request, false);
+    }
+
+    /**
+     * Submit code for a regular (public) problem and stream its judging as it happens
+     */
+    public Flux<SubmissionEvent> streamSubmitCode(Long userId, SubmitCodeRequest request) {
+        return submitCode(userId, request, true).flatMapMany(this::followSubmission);
+    }
+
+    private Mono<ResponseEntity<SubmissionResponse>> submitCode(Long userId, SubmitCodeRequest request, boolean detached) {
+        boolean isRun = request.getIsRun() != null && request.getIsRun();
+        // Shed load before touching the database when the judge is saturated
+        return admissionControl.admit(isRun)
+            .then(questionRepository.findById(request.getQuestionId()))
             .switchIfEmpty(Mono.error(new NotFoundException("Question not found")))
             .flatMap(question -> {
                 // Check if question is public
@@ -75,9 +170,8 @@ public class SubmissionService {
                     return Mono.error(new ForbiddenException("This question is not public"));
                 }
                 
-                boolean isRun = request.getIsRun() != null && request.getIsRun();
                 return processSubmission(userId, null, request.getQuestionId(), 
-                    request.getCode(), request.getLanguage(), isRun);
+                    request.getCode(), request.getLanguage(), isRun, detached);
             });
     }
 
@@ -85,7 +179,21 @@ public class SubmissionService {
      * Submit code for a contest problem
      */
     public Mono<ResponseEntity<SubmissionResponse>> submitContestCode(Long userId, ContestSubmitCodeRequest request) {
-        return Mono.zip(
+        return submitContestCode(userId, request, false);
+    }
+
+    /**
+     * Submit code for a contest problem and stream its judging as it happens
+     */
+    public Flux<SubmissionEvent> streamSubmitContestCode(Long userId, ContestSubmitCodeRequest request) {
+        return submitContestCode(userId, request, true).flatMapMany(this::followSubmission);
+    }
+
+    private Mono<ResponseEntity<SubmissionResponse>> submitContestCode(
+            Long userId, ContestSubmitCodeRequest request, boolean detached) {
+        boolean isRun = request.getIsRun() != null && request.getIsRun();
+        // Shed load before touching the database when the judge is saturated
+        return admissionControl.admit(isRun).then(Mono.zip(
             questionRepository.findById(request.getQuestionId())
                 .switchIfEmpty(Mono.error(new NotFoundException("Question not found"))),
             contestRepository.findById(request.getContestId())
@@ -111,17 +219,25 @@ public class SubmissionService {
                 return Mono.error(new ForbiddenException("Contest has ended"));
             }
 
-            boolean isRun = request.getIsRun() != null && request.getIsRun();
             return processSubmission(userId, request.getContestId(), request.getQuestionId(), 
-                request.getCode(), request.getLanguage(), isRun);
-        });
+                request.getCode(), request.getLanguage(), isRun, detached);
+        }));
+    }
+
+    /**
+     * Current admission limits, load and rejection counts of this node
+     */
+    public Mono<ResponseEntity<AdmissionStatus>> getAdmissionStatus() {
+        return Mono.fromSupplier(() -> new ResponseEntity<>(admissionControl.status(), "Admission status fetched successfully"));
     }
 
     /**
-     * Process the submission by executing code and comparing with test cases
+     * Process the submission by executing code and comparing with test cases. A detached
+     * submission is answered as soon as it is saved and graded in the background.
      */
     private Mono<ResponseEntity<SubmissionResponse>> processSubmission(
-            Long userId, Long contestId, Long questionId, String code, String language, boolean isRun) {
+            Long userId, Long contestId, Long questionId, String code, String language, boolean isRun,
+            boolean detached) {
         
         logger.info("Processing submission: userId={}, questionId={}, contestId={}, language={}, isRun={}", 
             userId, questionId, contestId, language, isRun);
@@ -140,120 +256,547 @@ public class SubmissionService {
         // For run operations, we don't save to database
         if (isRun) {
             logger.info("Handling run operation for user {}", userId);
-            return testCaseRepository.findByQuestionId(questionId)
-                .filter(TestCase::getIsSample) // Only sample test cases for run
-                .collectList()
-                .flatMap(testCases -> {
+            return Mono.zip(
+                    testSetCache.get(questionId).map(TestSetCache.TestSet::samples), // Only sample test cases for run
+                    questionRepository.findById(questionId)
+                        .switchIfEmpty(Mono.error(new NotFoundException("Question not found"))))
+                .flatMap(tuple -> {
+                    List<TestCase> testCases = tuple.getT1();
                     if (testCases.isEmpty()) {
                         return createRunResponse("No Sample Test Cases", "", 0, 0, new ArrayList<>());
                     }
-                    return executeAndValidate(null, testCases, code, language, true);
+                    // Runs always go through every sample, whatever the judging policy
+                    return executeAndValidate(null, testCases, code, language, true, false,
+                        Checker.forQuestion(tuple.getT2()), limits(tuple.getT2()), ticket(submission, true), null);
                 });
         }
 
         logger.info("Saving submission for user {}", userId);
         return submissionRepository.save(submission)
-            .flatMap(savedSubmission -> 
-                // Fetch all test cases for the question
-                testCaseRepository.findByQuestionId(questionId)
-                    .collectList()
-                    .flatMap(testCases -> {
-                        logger.debug("Fetched {} test cases for question {}", testCases.size(), questionId);
-                        if (testCases.isEmpty()) {
-                            return updateSubmissionStatus(savedSubmission, "No Test Cases", "", 0, 0, false, new ArrayList<>());
-                        }
+            .flatMap(savedSubmission -> {
+                // In async mode the judge workers pick the submission up from the queue
+                if (asyncJudging) {
+                    return enqueueSubmission(savedSubmission);
+                }
+                if (detached) {
+                    gradeSubmission(savedSubmission).subscribe(null, e ->
+                        logger.error("Failed to judge submission {}: {}", savedSubmission.getId(), e.getMessage(), e));
+                    return Mono.just(new ResponseEntity<>(toSubmissionResponse(savedSubmission), "Submission accepted for judging"));
+                }
+                return gradeSubmission(savedSubmission);
+            });
+    }
+
+    /**
+     * Grade a submission a judge worker holds the lease of, in async mode. The verdict is
+     * dropped if another worker stored one first.
+     */
+    public Mono<Void> judgeSubmission(Submission leased) {
+        return gradeSubmission(leased).then();
+    }
+
+    /**
+     * Grade an already judged submission again, at rejudge priority and without touching the
+     * contest stats, which a rejudge recomputes once it is done. Emits the new status.
+     */
+    public Mono<String> rejudgeSubmission(Submission submission) {
+        return gradeSubmission(submission, true)
+            .map(response -> response.getData().getStatus());
+    }
+
+    /**
+     * Get the current status of one of the user's submissions
+     */
+    public Mono<ResponseEntity<SubmissionResponse>> getSubmission(Long userId, Long submissionId) {
+        return submissionRepository.findById(submissionId)
+            .switchIfEmpty(Mono.error(new NotFoundException("Submission not found")))
+            .flatMap(submission -> {
+                if (!submission.getUserId().equals(userId)) {
+                    return Mono.error(new ForbiddenException("You are not allowed to view this submission"));
+                }
+                return loadSubmissionResponse(submission)
+                    .map(response -> new ResponseEntity<>(response, "Submission retrieved successfully"));
+            });
+    }
+
+    /**
+     * Stream the judging of one of the user's submissions: each test case result as soon as
+     * it is known, then the final verdict. An already graded submission yields just its verdict.
+     */
+    public Flux<SubmissionEvent> streamSubmission(Long userId, Long submissionId) {
+        return submissionRepository.findById(submissionId)
+            .switchIfEmpty(Mono.error(new NotFoundException("Submission not found")))
+            .flatMapMany(submission -> {
+                if (!submission.getUserId().equals(userId)) {
+                    return Flux.error(new ForbiddenException("You are not allowed to view this submission"));
+                }
+                if (!"Pending".equals(submission.getStatus())) {
+                    return loadSubmissionResponse(submission)
+                        .map(response -> new SubmissionEvent(SubmissionEvent.VERDICT, submissionId, null, response, null))
+                        .flux();
+                }
+                return judgingEvents(submissionId);
+            });
+    }
+
+    private Flux<SubmissionEvent> followSubmission(ResponseEntity<SubmissionResponse> response) {
+        SubmissionResponse submitted = response.getData();
+        // Runs are not persisted and finish within the request
+        if (Boolean.TRUE.equals(submitted.getIsRun())) {
+            return Flux.just(new SubmissionEvent(SubmissionEvent.VERDICT, null, null, submitted, null));
+        }
+        return Flux.concat(
+            Mono.just(new SubmissionEvent(SubmissionEvent.SUBMITTED, submitted.getSubmissionId(), null, submitted, null)),
+            judgingEvents(submitted.getSubmissionId()));
+    }
+
+    /**
+     * Live events when the submission is judged on this node. A submission judged by a worker
+     * on another node still gets its final verdict, picked up by polling the database.
+     */
+    private Flux<SubmissionEvent> judgingEvents(Long submissionId) {
+        Flux<SubmissionEvent> polledVerdict = Flux.interval(eventPollInterval)
+            .concatMap(tick -> submissionRepository.findById(submissionId))
+            .filter(submission -> !"Pending".equals(submission.getStatus()))
+            .take(1)
+            .concatMap(this::loadSubmissionResponse)
+            .map(response -> new SubmissionEvent(SubmissionEvent.VERDICT, submissionId, null, response, null));
+
+        return Flux.merge(submissionSseService.subscribe(submissionId), polledVerdict)
+            .takeUntil(event -> SubmissionEvent.VERDICT.equals(event.getType())
+                || SubmissionEvent.ERROR.equals(event.getType()));
+    }
+
+    private SubmissionResponse toSubmissionResponse(Submission submission) {
+        SubmissionResponse response = new SubmissionResponse();
+        response.setSubmissionId(submission.getId());
+        response.setStatus(submission.getStatus());
+        response.setOutput(submission.getOutput());
+        response.setPassedTestCases(submission.getPassedTestCases());
+        response.setTotalTestCases(submission.getTotalTestCases());
+        response.setIsRun(false);
+        return response;
+    }
+
+    /**
+     * Response of a graded submission with its per-test results. Submissions graded before
+     * results were stored per test case only have their output report.
+     */
+    private Mono<SubmissionResponse> loadSubmissionResponse(Submission submission) {
+        SubmissionResponse response = toSubmissionResponse(submission);
+        if (submission.getOutput() != null) {
+            return Mono.just(response);
+        }
+        return submissionResultRepository.findBySubmissionIdOrderByTestCaseNumber(submission.getId())
+            .map(this::toTestCaseResult)
+            .collectList()
+            .map(testCaseResults -> {
+                response.setTestCaseResults(testCaseResults);
+                response.setOutput(formatReport(testCaseResults));
+                return response;
+            });
+    }
 
+    /**
+     * Publish a saved submission to the judge queue and answer right away
+     */
+    private Mono<ResponseEntity<SubmissionResponse>> enqueueSubmission(Submission submission) {
+        return judgeQueue.publish(new JudgeJob(submission.getId()))
+            .then(Mono.fromSupplier(() -> {
+                logger.info("Queued submission {} for judging", submission.getId());
+                return new ResponseEntity<>(toSubmissionResponse(submission), "Submission queued for judging");
+            }))
+            .onErrorResume(e -> {
+                // Don't leave a Pending row behind that no worker will ever pick up
+                logger.error("Failed to queue submission {}: {}", submission.getId(), e.getMessage(), e);
+                submission.setStatus("Internal Error");
+                return submissionRepository.save(submission)
+                    .then(Mono.error(new InternalServerErrorException("Failed to queue submission for judging", e)));
+            });
+    }
+
+    /**
+     * Run a saved submission against all test cases of its question
+     */
+    private Mono<ResponseEntity<SubmissionResponse>> gradeSubmission(Submission submission) {
+        return gradeSubmission(submission, false);
+    }
+
+    private Mono<ResponseEntity<SubmissionResponse>> gradeSubmission(Submission submission, boolean rejudge) {
+        ExecutionLimiter.Ticket ticket = rejudge
+            ? new ExecutionLimiter.Ticket(ExecutionPriority.REJUDGE, submission.getUserId())
+            : ticket(submission, false);
+        Long questionId = submission.getQuestionId();
+        // Fetch all test cases for the question
+        return questionRepository.findById(questionId)
+            .switchIfEmpty(Mono.error(new NotFoundException("Question not found")))
+            .flatMap(question -> Mono.zip(
+                testSetCache.get(questionId),
+                resolveJudgingPolicy(question, submission),
+                Mono.just(Checker.forQuestion(question)),
+                Mono.just(limits(question))))
+            .flatMap(tuple -> {
+                TestSetCache.TestSet testSet = tuple.getT1();
+                List<TestCase> testCases = testSet.all();
+                String policy = tuple.getT2();
+                Checker checker = tuple.getT3();
+                ExecutionLimits limits = tuple.getT4();
+                boolean failFast = "fail-fast".equalsIgnoreCase(policy);
+                logger.debug("Fetched {} test cases for question {}, policy={}, checker={}",
+                    testCases.size(), questionId, policy, checker.name());
+                if (testCases.isEmpty()) {
+                    return updateSubmissionStatus(submission, "No Test Cases", "", 0, 0, false, new ArrayList<>(), !rejudge);
+                }
+
+                // Identical code against an unchanged test set gets the verdict it got last time.
+                // A rejudge always executes, since it is asked for when the last verdict is in doubt,
+                // and refreshes the cached one.
+                return verdictCache.key(questionId, testSet,
+                        policy.toLowerCase() + ":" + checker.name() + ":" + limits.name(),
+                        mapLanguageToPiston(submission.getLanguage()), submission.getCode())
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(cacheKey -> cacheKey.filter(key -> !rejudge).map(verdictCache::get).orElse(Mono.empty())
+                        .flatMap(verdict -> {
+                            logger.info("Verdict cache hit for submission {}: {}", submission.getId(), verdict.getStatus());
+                            return updateSubmissionStatus(submission, verdict.getStatus(), verdict.getOutput(),
+                                verdict.getPassedTestCases(), verdict.getTotalTestCases(), false, verdict.getTestCaseResults(),
+                                !rejudge);
+                        })
                         // Execute code against all test cases
-                        return executeAndValidate(savedSubmission, testCases, code, language, false);
-                    })
-            );
+                        .switchIfEmpty(Mono.defer(() -> executeAndValidate(submission, testCases, submission.getCode(),
+                            submission.getLanguage(), false, failFast, checker, limits, ticket,
+                            cacheKey.orElse(null)))));
+            })
+            .doOnError(e -> {
+                // Rejudges are not followed over SSE
+                if (!rejudge) {
+                    submissionSseService.publish(new SubmissionEvent(SubmissionEvent.ERROR, submission.getId(),
+                        null, null, "Judging failed, please try again later"));
+                }
+            });
+    }
+
+    /**
+     * Resolve the judging policy of a submission: the question's policy wins over the
+     * contest's, which wins over crucible.judge.default-policy
+     */
+    private Mono<String> resolveJudgingPolicy(Question question, Submission submission) {
+        if (question.getJudgingPolicy() != null) {
+            return Mono.just(question.getJudgingPolicy());
+        }
+        if (submission.getContestId() == null) {
+            return Mono.just(defaultJudgingPolicy);
+        }
+        return contestRepository.findById(submission.getContestId())
+            .mapNotNull(Contest::getJudgingPolicy)
+            .defaultIfEmpty(defaultJudgingPolicy);
     }
 
     /**
-     * Execute code against all test cases and validate results
+     * Time and memory limits of a question, falling back to crucible.judge.limits and with the
+     * time limit capped at crucible.judge.limits.max-time-ms
+     */
+    private ExecutionLimits limits(Question question) {
+        return ExecutionLimits.forQuestion(question, defaultTimeLimitMs, defaultMemoryLimitMb, maxTimeLimitMs);
+    }
+
+    /**
+     * Execute code against all test cases and validate results. The verdict is stored under
+     * {@code cacheKey} unless it is null or an execution failed outright.
      */
     private Mono<ResponseEntity<SubmissionResponse>> executeAndValidate(
-            Submission submission, List<TestCase> testCases, String code, String language, boolean isRun) {
-        
-        AtomicInteger passedCount = new AtomicInteger(0);
-        AtomicInteger totalCount = new AtomicInteger(testCases.size());
-        AtomicInteger testCaseNumber = new AtomicInteger(1);
-        StringBuilder outputBuilder = new StringBuilder();
-        List<TestCaseResult> testCaseResults = new ArrayList<>();
+            Submission submission, List<TestCase> testCases, String code, String language, boolean isRun,
+            boolean failFast, Checker checker, ExecutionLimits limits, ExecutionLimiter.Ticket ticket,
+            String cacheKey) {
+
+        // Compile once and run every input in one sandbox execution when the language allows it
+        Flux<TestCaseResult> execution = batchExecution
+                && executionBackend.supportsBatch(buildExecuteRequest(code, language, null, limits))
+            ? executeBatch(testCases, code, language, failFast, checker, limits, ticket)
+            : executeEach(testCases, code, language, checker, limits, ticket);
+
+        if (failFast) {
+            // Results arrive in test case order, so completing after the first failure cancels
+            // the executions still in flight and releases their limiter slots
+            execution = execution.takeUntil(result -> !result.getPassed());
+        }
 
-        // Execute code for each test case
-        return Flux.fromIterable(testCases)
-            .concatMap(testCase -> executeCodeWithInput(code, language, testCase.getInput())
-                .map(response -> {
-                    boolean passed = validateOutput(response, testCase.getExpectedOutput());
-                    if (passed) {
-                        passedCount.incrementAndGet();
-                    }
-                    
-                    // Create test case result
-                    TestCaseResult result = new TestCaseResult();
-                    result.setTestCaseNumber(testCaseNumber.getAndIncrement());
-                    result.setPassed(passed);
-                    result.setInput(testCase.getInput());
-                    result.setExpectedOutput(testCase.getExpectedOutput());
-                    result.setActualOutput(response.getRun() != null && response.getRun().getOutput() != null 
-                        ? response.getRun().getOutput().trim() : "");
-                    result.setIsSample(testCase.getIsSample());
-                    testCaseResults.add(result);
-                    
-                    // Collect output information
-                    if (testCase.getIsSample()) {
-                        outputBuilder.append("Test Case (Sample):\n");
-                    } else {
-                        outputBuilder.append("Test Case:\n");
-                    }
-                    outputBuilder.append("Expected: ").append(testCase.getExpectedOutput()).append("\n");
-                    outputBuilder.append("Got: ").append(result.getActualOutput()).append("\n");
-                    outputBuilder.append("Status: ").append(passed ? "PASS" : "FAIL").append("\n\n");
-                    
-                    return passed;
-                })
-                .onErrorResume(e -> {
-                    // Handle execution errors (Runtime Error, TLE, etc.)
-                    TestCaseResult result = new TestCaseResult();
-                    result.setTestCaseNumber(testCaseNumber.getAndIncrement());
-                    result.setPassed(false);
-                    result.setInput(testCase.getInput());
-                    result.setExpectedOutput(testCase.getExpectedOutput());
-                    result.setErrorMessage(e.getMessage());
-                    result.setIsSample(testCase.getIsSample());
-                    testCaseResults.add(result);
-                    
-                    outputBuilder.append("Execution Error: ").append(e.getMessage()).append("\n\n");
-                    return Mono.just(false);
-                })
-            )
+        if (submission != null && ticket.priority() != ExecutionPriority.REJUDGE) {
+            // Push each result to SSE subscribers as soon as it is known
+            execution = execution
+                .index((i, result) -> {
+                    result.setTestCaseNumber((int) (i + 1));
+                    submissionSseService.publish(new SubmissionEvent(SubmissionEvent.TEST_CASE, submission.getId(),
+                        result, null, null));
+                    return result;
+                });
+        }
+
+        return execution
             .collectList()
-            .flatMap(results -> {
+            .map(testCaseResults -> {
+                // Record every test case that never ran as skipped
+                for (int i = testCaseResults.size(); i < testCases.size(); i++) {
+                    testCaseResults.add(buildSkippedResult(testCases.get(i)));
+                }
+                return testCaseResults;
+            })
+            .flatMap(testCaseResults -> {
+                int passedCount = 0;
+                int totalCount = testCases.size();
+                for (int i = 0; i < testCaseResults.size(); i++) {
+                    TestCaseResult result = testCaseResults.get(i);
+                    result.setTestCaseNumber(i + 1);
+                    if (result.getPassed()) {
+                        passedCount++;
+                    }
+                }
+                // Built from the capped previews, so bounded however much the program printed
+                String report = formatReport(testCaseResults);
+
                 // Determine final status
                 String status;
-                if (passedCount.get() == totalCount.get()) {
+                if (passedCount == totalCount) {
                     status = "Accepted";
-                } else if (passedCount.get() == 0) {
-                    status = "Wrong Answer";
+                } else if (passedCount == 0) {
+                    status = zeroPassedStatus(testCaseResults);
                 } else {
                     status = "Partial";
                 }
 
                 if (isRun) {
-                    return createRunResponse(status, outputBuilder.toString(), 
-                        passedCount.get(), totalCount.get(), testCaseResults);
-                } else {
-                    return updateSubmissionStatus(submission, status, outputBuilder.toString(), 
-                        passedCount.get(), totalCount.get(), false, testCaseResults);
+                    return createRunResponse(status, report, 
+                        passedCount, totalCount, testCaseResults);
                 }
+
+                // Only verdicts that depend on the code alone are reused. An execution error means the
+                // executor failed, and time and memory limits depend on its load; judge those again next time
+                boolean cacheable = cacheKey != null
+                    && testCaseResults.stream().allMatch(result -> result.getErrorMessage() == null
+                        && (result.getVerdict() == null || !UNCACHEABLE_VERDICTS.contains(result.getVerdict())));
+                Mono<Void> cacheVerdict = cacheable
+                    ? verdictCache.put(cacheKey, new CachedVerdict(status, report,
+                        passedCount, totalCount, testCaseResults))
+                    : Mono.empty();
+
+                return cacheVerdict.then(updateSubmissionStatus(submission, status, report,
+                    passedCount, totalCount, false, testCaseResults, ticket.priority() != ExecutionPriority.REJUDGE));
             });
     }
 
     /**
-     * Execute code with given input using Piston API
+     * Execute code once per test case. Up to {@code submissionParallelism} executions of one
+     * submission run at a time, and results are emitted in test case order. Test data is read
+     * from the blob store per execution, so a large test set is never held in memory all at once.
+     * Test cases come from the shared {@link TestSetCache} and are never modified.
+     */
+    private Flux<TestCaseResult> executeEach(List<TestCase> testCases, String code, String language, Checker checker,
+                                             ExecutionLimits limits, ExecutionLimiter.Ticket ticket) {
+        return Flux.fromIterable(testCases)
+            .flatMapSequential(testCase -> testDataStore.input(testCase)
+                .flatMap(input -> executeOne(testCase, input, code, language, checker, limits, ticket))
+                .onErrorResume(e -> Mono.just(buildErrorResult(testCase, null, e))),
+                submissionParallelism);
+    }
+
+    /**
+     * Execute code against one test case input on its own
+     */
+    private Mono<TestCaseResult> executeOne(TestCase testCase, String input, String code, String language,
+                                            Checker checker, ExecutionLimits limits, ExecutionLimiter.Ticket ticket) {
+        return executionLimiter
+            .run(mapLanguageToPiston(language), ticket, executionBackend.executeCode(buildExecuteRequest(code, language, input, limits)))
+            .zipWith(testDataStore.expectedOutput(testCase))
+            .map(execution -> buildTestCaseResult(testCase, input, execution.getT2(), execution.getT1(),
+                checker, limits))
+            // Handle execution errors (Runtime Error, TLE, etc.)
+            .onErrorResume(e -> Mono.just(buildErrorResult(testCase, input, e)));
+    }
+
+    /**
+     * Execute code against all test case inputs in a single sandbox execution,
+     * falling back to one execution per test case if the batch itself fails. Inputs the batch
+     * didn't get to report on are executed on their own. With {@code failFast} the batch stops
+     * after the first crash, and the caller stops at the first failed result, before reaching them.
      */
-    private Mono<PistonExecuteResponse> executeCodeWithInput(String code, String language, String input) {
+    private Flux<TestCaseResult> executeBatch(List<TestCase> testCases, String code, String language,
+                                              boolean failFast, Checker checker, ExecutionLimits limits,
+                                              ExecutionLimiter.Ticket ticket) {
+        String pistonLanguage = mapLanguageToPiston(language);
+        return Flux.fromIterable(testCases)
+            .concatMap(testDataStore::input)
+            .collectList()
+            .flatMap(inputs -> executionLimiter
+                .run(pistonLanguage, ticket, inputs.size(),
+                    executionBackend.executeBatch(buildExecuteRequest(code, language, null, limits), inputs, failFast))
+                .map(responses -> Optional.of(Tuples.of(inputs, responses))))
+            // Only the batch execution falls back, so no result is ever emitted twice
+            .onErrorResume(e -> {
+                logger.warn("Batch execution failed for language {}, executing test cases one by one: {}",
+                    language, e.getMessage());
+                return Mono.just(Optional.empty());
+            })
+            .flatMapMany(batch -> batch.isEmpty()
+                ? executeEach(testCases, code, language, checker, limits, ticket)
+                : Flux.range(0, testCases.size())
+                    .concatMap(i -> {
+                        TestCase testCase = testCases.get(i);
+                        String input = batch.get().getT1().get(i);
+                        PistonExecuteResponse response = batch.get().getT2().get(i);
+                        if (response == null) {
+                            return executeOne(testCase, input, code, language, checker, limits, ticket);
+                        }
+                        return testDataStore.expectedOutput(testCase)
+                            .map(expected -> buildTestCaseResult(testCase, input, expected, response, checker, limits))
+                            .onErrorResume(e -> Mono.just(buildErrorResult(testCase, input, e)));
+                    }));
+    }
+
+    /**
+     * Scheduling class and fair-share key of the executions for a submission or run
+     */
+    private static ExecutionLimiter.Ticket ticket(Submission submission, boolean isRun) {
+        return new ExecutionLimiter.Ticket(ExecutionPriority.of(submission.getContestId(), isRun), submission.getUserId());
+    }
+
+    private TestCaseResult buildTestCaseResult(TestCase testCase, String input, String expectedOutput,
+                                               PistonExecuteResponse response, Checker checker, ExecutionLimits limits) {
+        PistonExecuteResponse.RunResult run = response.getRun();
+        // Only a run that completed within the limits has its output checked
+        TestVerdict failure = limits.failure(response);
+        CheckResult check = failure != null
+            ? CheckResult.mismatch(null)
+            : checker.check(expectedOutput, run.getOutput());
+        String actualOutput = run != null && run.getOutput() != null ? run.getOutput().trim() : "";
+        TestCaseResult result = new TestCaseResult();
+        result.setPassed(check.isPassed());
+        result.setVerdict(failure != null ? failure : check.isPassed() ? TestVerdict.PASSED : TestVerdict.WRONG_ANSWER);
+        if (run != null) {
+            result.setExitCode(run.getCode());
+            result.setRuntimeMs(run.getWall_time());
+            result.setCpuTimeMs(run.getCpu_time());
+            result.setMemoryBytes(run.getMemory());
+        }
+        result.setMismatch(outputPreview.of(check.getMessage()));
+        result.setInput(outputPreview.of(input));
+        result.setExpectedOutput(outputPreview.of(expectedOutput));
+        result.setActualOutput(outputPreview.of(actualOutput));
+        result.setTruncated(outputPreview.exceeds(input) || outputPreview.exceeds(expectedOutput)
+            || outputPreview.exceeds(actualOutput));
+        result.setIsSample(testCase.getIsSample());
+        return result;
+    }
+
+    private TestCaseResult buildErrorResult(TestCase testCase, String input, Throwable e) {
+        TestCaseResult result = new TestCaseResult();
+        result.setPassed(false);
+        result.setVerdict(TestVerdict.EXECUTION_ERROR);
+        result.setInput(outputPreview.of(input));
+        result.setTruncated(outputPreview.exceeds(input));
+        result.setErrorMessage(outputPreview.of(e.getMessage()));
+        result.setIsSample(testCase.getIsSample());
+        return result;
+    }
+
+    private TestCaseResult buildSkippedResult(TestCase testCase) {
+        TestCaseResult result = new TestCaseResult();
+        result.setPassed(false);
+        result.setSkipped(true);
+        result.setVerdict(TestVerdict.SKIPPED);
+        result.setIsSample(testCase.getIsSample());
+        return result;
+    }
+
+    /**
+     * Status of a submission that passed no test case: a limit verdict if the first test case
+     * that ran went over a limit, otherwise Wrong Answer
+     */
+    private static String zeroPassedStatus(List<TestCaseResult> testCaseResults) {
+        TestVerdict first = testCaseResults.stream()
+            .map(TestCaseResult::getVerdict)
+            .filter(verdict -> verdict != null && verdict != TestVerdict.SKIPPED)
+            .findFirst()
+            .orElse(null);
+        if (first == TestVerdict.TIME_LIMIT_EXCEEDED) {
+            return "Time Limit Exceeded";
+        }
+        if (first == TestVerdict.MEMORY_LIMIT_EXCEEDED) {
+            return "Memory Limit Exceeded";
+        }
+        return "Wrong Answer";
+    }
+
+    /**
+     * Human-readable report of the results, as shown in the output of a response
+     */
+    private static String formatReport(List<TestCaseResult> testCaseResults) {
+        StringBuilder report = new StringBuilder();
+        for (TestCaseResult result : testCaseResults) {
+            if (Boolean.TRUE.equals(result.getSkipped())) {
+                report.append("Test Case: Skipped\n\n");
+                continue;
+            }
+            if (result.getErrorMessage() != null) {
+                report.append("Execution Error: ").append(result.getErrorMessage()).append("\n\n");
+                continue;
+            }
+            if (Boolean.TRUE.equals(result.getIsSample())) {
+                report.append("Test Case (Sample):\n");
+            } else {
+                report.append("Test Case:\n");
+            }
+            report.append("Expected: ").append(result.getExpectedOutput()).append("\n");
+            report.append("Got: ").append(result.getActualOutput()).append("\n");
+            report.append("Status: ").append(Boolean.TRUE.equals(result.getPassed()) ? "PASS" : "FAIL").append("\n\n");
+        }
+        return report.toString();
+    }
+
+    private SubmissionResult toSubmissionResult(Long submissionId, TestCaseResult result) {
+        TestVerdict verdict = result.getVerdict();
+        if (verdict == null) {
+            // Verdicts cached before results carried one
+            verdict = Boolean.TRUE.equals(result.getSkipped()) ? TestVerdict.SKIPPED
+                : result.getErrorMessage() != null ? TestVerdict.EXECUTION_ERROR
+                : Boolean.TRUE.equals(result.getPassed()) ? TestVerdict.PASSED
+                : TestVerdict.WRONG_ANSWER;
+        }
+        return new SubmissionResult(null, submissionId, result.getTestCaseNumber(), verdict,
+            Boolean.TRUE.equals(result.getIsSample()), result.getRuntimeMs(), result.getCpuTimeMs(),
+            result.getMemoryBytes(), result.getExitCode(),
+            result.getInput(), result.getExpectedOutput(), result.getActualOutput(),
+            Boolean.TRUE.equals(result.getTruncated()),
+            result.getErrorMessage() != null ? result.getErrorMessage() : result.getMismatch());
+    }
+
+    private TestCaseResult toTestCaseResult(SubmissionResult row) {
+        TestCaseResult result = new TestCaseResult();
+        result.setTestCaseNumber(row.getTestCaseNumber());
+        result.setPassed(row.getVerdict() == TestVerdict.PASSED);
+        result.setVerdict(row.getVerdict());
+        result.setIsSample(row.getIsSample());
+        result.setRuntimeMs(row.getRuntimeMs());
+        result.setCpuTimeMs(row.getCpuTimeMs());
+        result.setMemoryBytes(row.getMemoryBytes());
+        result.setExitCode(row.getExitCode());
+        result.setInput(row.getInputPreview());
+        result.setExpectedOutput(row.getExpectedOutputPreview());
+        result.setActualOutput(row.getActualOutputPreview());
+        result.setTruncated(row.getOutputTruncated());
+        result.setSkipped(row.getVerdict() == TestVerdict.SKIPPED);
+        if (row.getVerdict() == TestVerdict.EXECUTION_ERROR) {
+            result.setErrorMessage(row.getMessage());
+        } else {
+            result.setMismatch(row.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Build an execution request for the given code and input
+     */
+    private PistonExecuteRequest buildExecuteRequest(String code, String language, String input, ExecutionLimits limits) {
         PistonExecuteRequest request = new PistonExecuteRequest();
         request.setLanguage(mapLanguageToPiston(language));
         request.setVersion("*"); // Use latest version
@@ -267,54 +810,88 @@ public class SubmissionService {
         request.setFiles(files);
         request.setStdin(input);
         request.setCompile_timeout(10000); // 10 seconds
-        request.setRun_timeout(3000); // 3 seconds
+        request.setRun_timeout(limits.timeLimitMs());
         request.setCompile_memory_limit(-1L); // No limit
-        request.setRun_memory_limit(-1L); // No limit
-
-        return pistonClient.executeCode(request);
-    }
-
-    /**
-     * Validate output against expected output
-     */
-    private boolean validateOutput(PistonExecuteResponse response, String expectedOutput) {
-        if (response.getRun() == null || response.getRun().getOutput() == null) {
-            return false;
-        }
-
-        // Check for runtime errors
-        if (response.getRun().getCode() != null && response.getRun().getCode() != 0) {
-            return false;
-        }
+        request.setRun_memory_limit(limits.executorMemoryLimitBytes(request.getLanguage()));
 
-        String actualOutput = response.getRun().getOutput().trim();
-        String expected = expectedOutput.trim();
-
-        return actualOutput.equals(expected);
+        return request;
     }
 
     /**
-     * Update submission with final status and output
+     * Update submission with final status and replace its per-test results. The output report
+     * only goes into the response; it can be rebuilt from the stored results.
+     * {@code updateStats} is false for rejudges, which recompute the contest stats in one go
+     * at the end.
+     *
+     * A first verdict is only stored while the submission is still pending and not leased by
+     * another worker, in one transaction with its results and contest stats, so a job that is
+     * delivered twice or graded by two workers is stored and counted once. The loser answers
+     * with the stored verdict. Rejudges only overwrite the verdict of a submission that is still
+     * graded, and change nothing else in the row.
      */
     private Mono<ResponseEntity<SubmissionResponse>> updateSubmissionStatus(
             Submission submission, String status, String output, int passedCount, int totalCount, 
-            boolean isRun, List<TestCaseResult> testCaseResults) {
+            boolean isRun, List<TestCaseResult> testCaseResults, boolean updateStats) {
         
         submission.setStatus(status);
-        submission.setOutput(output);
+        submission.setOutput(null);
+        submission.setPassedTestCases(passedCount);
+        submission.setTotalTestCases(totalCount);
+        Long submissionId = submission.getId();
+        boolean countsForContest = updateStats && submission.getContestId() != null && "Accepted".equals(status);
+
+        Mono<Boolean> storeVerdict = updateStats
+            ? submissionRepository.completeJudging(submissionId, submission.getLeaseOwner(), status,
+                    passedCount, totalCount)
+                .map(updated -> updated > 0)
+            : submissionRepository.completeRejudging(submissionId, status, passedCount, totalCount)
+                .map(updated -> updated > 0);
+
+        return storeVerdict
+            .flatMap(stored -> {
+                if (!stored) {
+                    return Mono.just(false);
+                }
+                return submissionResultRepository.deleteBySubmissionId(submissionId)
+                    .thenMany(submissionResultRepository.saveAll(testCaseResults.stream()
+                        .map(result -> toSubmissionResult(submissionId, result))
+                        .toList()))
+                    .then(countsForContest
+                        ? updateUserContestStats(submission.getUserId(), submission.getContestId(),
+                            submission.getQuestionId())
+                        : Mono.empty())
+                    .thenReturn(true);
+            })
+            .as(transactionalOperator::transactional)
+            .flatMap(stored -> {
+                if (!stored) {
+                    logger.info(updateStats
+                        ? "Submission {} was graded elsewhere first, dropping this verdict"
+                        : "Submission {} is pending again, dropping its rejudged verdict", submissionId);
+                    return submissionRepository.findById(submissionId)
+                        .flatMap(this::loadSubmissionResponse)
+                        .map(response -> new ResponseEntity<>(response, "Submission processed successfully"));
+                }
+                submission.setLeaseOwner(null);
+                submission.setLeaseExpiresAt(null);
+                Mono<ResponseEntity<SubmissionResponse>> response = createSubmissionResponse(
+                        submission, output, passedCount, totalCount, isRun, testCaseResults)
+                    .doOnNext(entity -> {
+                        if (updateStats) {
+                            submissionSseService.publish(new SubmissionEvent(
+                                SubmissionEvent.VERDICT, submissionId, null, entity.getData(), null));
+                        }
+                    });
 
-        return submissionRepository.save(submission)
-            .flatMap(updated -> {
-                // If this is a contest submission and it's accepted, update user contest stats
-                // and push a fresh leaderboard snapshot to any connected SSE clients
-                if (updated.getContestId() != null && "Accepted".equals(status)) {
-                    return updateUserContestStats(updated.getUserId(), updated.getContestId(),
-                            updated.getQuestionId())
-                        .then(contestService.refreshAndBroadcastLeaderboard(updated.getContestId()))
-                        .then(createSubmissionResponse(updated, passedCount, totalCount, isRun, testCaseResults));
-                } else {
-                    return createSubmissionResponse(updated, passedCount, totalCount, isRun, testCaseResults);
+                // Update the standings and push a fresh leaderboard snapshot to any connected SSE
+                // clients in the background; the verdict doesn't wait for them
+                if (countsForContest) {
+                    leaderboardStore.recordAccepted(submission)
+                        .then(contestService.refreshAndBroadcastLeaderboard(submission.getContestId()))
+                        .subscribe(null, e -> logger.warn("Failed to update the leaderboard of contest {}: {}",
+                            submission.getContestId(), e.getMessage()));
                 }
+                return response;
             });
     }
 
@@ -338,10 +915,12 @@ public class SubmissionService {
     }
 
     /**
-     * Update user contest statistics
+     * Update user contest statistics. Runs in the verdict's transaction with the participant's
+     * row locked, so that the accepted submissions counted below include those of any verdict
+     * that updated the stats before us.
      */
     private Mono<Void> updateUserContestStats(Long userId, Long contestId, Long questionId) {
-        return userContestRepository.findByUserIdAndContestId(userId, contestId)
+        return userContestRepository.lockByUserIdAndContestId(userId, contestId)
             .flatMap(userContest -> {
                 // Check if this is a new solved question (count previous accepted submissions)
                 return submissionRepository.findByUserIdAndQuestionId(userId, questionId)
@@ -379,12 +958,13 @@ public class SubmissionService {
      * Create submission response DTO
      */
     private Mono<ResponseEntity<SubmissionResponse>> createSubmissionResponse(
-            Submission submission, int passedCount, int totalCount, boolean isRun, List<TestCaseResult> testCaseResults) {
+            Submission submission, String output, int passedCount, int totalCount, boolean isRun,
+            List<TestCaseResult> testCaseResults) {
         
         SubmissionResponse response = new SubmissionResponse();
         response.setSubmissionId(submission.getId());
         response.setStatus(submission.getStatus());
-        response.setOutput(submission.getOutput());
+        response.setOutput(output);
         response.setPassedTestCases(passedCount);
         response.setTotalTestCases(totalCount);
         response.setIsRun(isRun);
@@ -0,0 +1,92 @@
+package com.crucible.platform.v1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import com.crucible.platform.v1.dto.submission.SubmissionEvent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one replay-all sink per submission that has an SSE subscriber on this node, so a
+ * second subscriber still receives every test case result the first one was sent, followed by
+ * the live ones and the final verdict.
+ *
+ * Sinks are only created by subscribers; events of submissions nobody follows here are
+ * dropped, so judging with no audience holds no results in memory. A subscriber that connects
+ * mid-judging gets the results from then on, and the verdict in any case. A sink completes with
+ * the verdict (or error) event and is dropped after {@code crucible.judge.events.retention}.
+ * Sinks of submissions judged on another node never complete here and are dropped after
+ * {@code crucible.judge.events.max-lifetime}.
+ */
+@Service
+public class SubmissionSseService {
+
+  private static final Logger logger = LoggerFactory.getLogger(SubmissionSseService.class);
+
+  private final Map<Long, Stream> streams = new ConcurrentHashMap<>();
+  private final Duration retention;
+  private final Duration maxLifetime;
+
+  public SubmissionSseService(
+      @Value("${crucible.judge.events.retention}") Duration retention,
+      @Value("${crucible.judge.events.max-lifetime}") Duration maxLifetime) {
+    this.retention = retention;
+    this.maxLifetime = maxLifetime;
+  }
+
+  /**
+   * Sink of one submission and the timer that drops it; guarded by itself
+   */
+  private static class Stream {
+
+    final Sinks.Many<SubmissionEvent> sink = Sinks.many().replay().all();
+    Disposable expiry;
+  }
+
+  public Flux<SubmissionEvent> subscribe(Long submissionId) {
+    return streams.computeIfAbsent(submissionId, id -> {
+      Stream stream = new Stream();
+      stream.expiry = removeLater(id, stream, maxLifetime);
+      return stream;
+    }).sink.asFlux();
+  }
+
+  /**
+   * Push an event to the submission's subscribers on this node, if it has any
+   */
+  public void publish(SubmissionEvent event) {
+    Long submissionId = event.getSubmissionId();
+    Stream stream = streams.get(submissionId);
+    if (stream == null) {
+      return;
+    }
+    boolean last = SubmissionEvent.VERDICT.equals(event.getType()) || SubmissionEvent.ERROR.equals(event.getType());
+    // Serialize emissions per-submission: Sinks.Many requires non-concurrent tryEmitNext calls,
+    // and results of one submission complete on different threads.
+    synchronized (stream) {
+      Sinks.EmitResult result = stream.sink.tryEmitNext(event);
+      if (result.isFailure()) {
+        logger.warn("Failed to publish {} event for submission {}: {}", event.getType(), submissionId, result);
+      }
+      if (last) {
+        stream.sink.tryEmitComplete();
+        // The retention removal replaces the max-lifetime one
+        stream.expiry.dispose();
+        stream.expiry = removeLater(submissionId, stream, retention);
+      }
+    }
+  }
+
+  private Disposable removeLater(Long submissionId, Stream stream, Duration delay) {
+    return Mono.delay(delay).subscribe(ignored -> streams.remove(submissionId, stream));
+  }
+}
@@ -7,10 +7,12 @@ import com.crucible.platform.v1.entity.Contest;
 import com.crucible.platform.v1.entity.TestCase;
 import com.crucible.platform.v1.exceptions.ForbiddenException;
 import com.crucible.platform.v1.exceptions.NotFoundException;
+import com.crucible.platform.v1.judge.TestSetCache;
 import com.crucible.platform.v1.repository.ContestAdminRepository;
 import com.crucible.platform.v1.repository.ContestRepository;
 import com.crucible.platform.v1.repository.QuestionRepository;
 import com.crucible.platform.v1.repository.TestCaseRepository;
+import com.crucible.platform.v1.storage.TestDataStore;
 
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
@@ -24,15 +26,21 @@ public class TestCaseService {
     private final ContestAdminRepository contestAdminRepository;
     private final QuestionRepository questionRepository;
     private final TestCaseRepository testCaseRepository;
+    private final TestSetCache testSetCache;
+    private final TestDataStore testDataStore;
 
     public TestCaseService(ContestRepository contestRepository,
                            ContestAdminRepository contestAdminRepository,
                            QuestionRepository questionRepository,
-                           TestCaseRepository testCaseRepository) {
+                           TestCaseRepository testCaseRepository,
+                           TestSetCache testSetCache,
+                           TestDataStore testDataStore) {
         this.contestRepository = contestRepository;
         this.contestAdminRepository = contestAdminRepository;
         this.questionRepository = questionRepository;
         this.testCaseRepository = testCaseRepository;
+        this.testSetCache = testSetCache;
+        this.testDataStore = testDataStore;
     }
 
     /**
@@ -44,17 +52,16 @@ public class TestCaseService {
         // Helper function to create and save the test case.
         // This is only called if authorization succeeds.
         Mono<TestCase> saveTestCase = Mono.fromSupplier(() -> {
-            TestCase newTestCase = new TestCase(
-                    null,
-                    testCaseDTO.getQuestionId(),
-                    testCaseDTO.getInput(),
-                    testCaseDTO.getExpectedOutput(),
-                    testCaseDTO.getIsSample(),
-                    LocalDateTime.now(),
-                    LocalDateTime.now()
-            );
+            TestCase newTestCase = new TestCase();
+            newTestCase.setQuestionId(testCaseDTO.getQuestionId());
+            newTestCase.setIsSample(testCaseDTO.getIsSample());
+            newTestCase.setCreatedAt(LocalDateTime.now());
+            newTestCase.setUpdatedAt(LocalDateTime.now());
             return newTestCase;
-        }).flatMap(testCaseRepository::save);
+        }).flatMap(newTestCase -> testDataStore.store(newTestCase, testCaseDTO.getInput(), testCaseDTO.getExpectedOutput()))
+          .flatMap(testCaseRepository::save)
+          // The question's test set changed: drop it from every node's cache and retire verdicts cached against it
+          .flatMap(saved -> testSetCache.invalidate(saved.getQuestionId()).thenReturn(saved));
 
         // 1. Find the question to get its contest ID
         return questionRepository.findById(testCaseDTO.getQuestionId())
@@ -82,7 +89,7 @@ public class TestCaseService {
                         .switchIfEmpty(Mono.error(new NotFoundException("Contest not found for question")))
                         .flatMap(contest -> {
                             if (contest.getCreatorId().equals(userId)) {
-                                return Mono.just(testCaseRepository.findByQuestionId(questionId));
+                                return Mono.just(loadTestCases(questionId));
                             }
 
                             return contestAdminRepository
@@ -90,7 +97,7 @@ public class TestCaseService {
                                     .hasElement()
                                     .flatMap(isAdmin -> {
                                         if (isAdmin) {
-                                            return Mono.just(testCaseRepository.findByQuestionId(questionId));
+                                            return Mono.just(loadTestCases(questionId));
                                         } else {
                                             return Mono.error(new ForbiddenException("You are not authorized to view test cases for this question"));
                                         }
@@ -113,12 +120,12 @@ public class TestCaseService {
                                 .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
                                 .flatMap(contest -> {
                                     Mono<TestCase> updateOperation = Mono.fromSupplier(() -> {
-                                        existingTestCase.setInput(testCaseDTO.getInput());
-                                        existingTestCase.setExpectedOutput(testCaseDTO.getExpectedOutput());
                                         existingTestCase.setIsSample(testCaseDTO.getIsSample());
                                         existingTestCase.setUpdatedAt(LocalDateTime.now());
                                         return existingTestCase;
-                                    }).flatMap(testCaseRepository::save);
+                                    }).flatMap(testCase -> testDataStore.store(testCase, testCaseDTO.getInput(), testCaseDTO.getExpectedOutput()))
+                                      .flatMap(testCaseRepository::save)
+                                      .flatMap(saved -> testSetCache.invalidate(saved.getQuestionId()).thenReturn(saved));
 
                                     return checkPermissions(contest, userId, updateOperation);
                                 })
@@ -139,8 +146,11 @@ public class TestCaseService {
                             contestRepository.findById(question.getContestId())
                                 .switchIfEmpty(Mono.error(new NotFoundException("Contest not found")))
                                 .flatMap(contest -> {
+                                    Mono<Void> deleteOperation = testCaseRepository.deleteById(testCaseId)
+                                            .then(testSetCache.invalidate(testCase.getQuestionId()));
+
                                     if (contest.getCreatorId().equals(userId)) {
-                                        return testCaseRepository.deleteById(testCaseId);
+                                        return deleteOperation;
                                     }
 
                                     return contestAdminRepository
@@ -148,7 +158,7 @@ public class TestCaseService {
                                             .hasElement()
                                             .flatMap(isAdmin -> {
                                                 if (isAdmin) {
-                                                    return testCaseRepository.deleteById(testCaseId);
+                                                    return deleteOperation;
                                                 } else {
                                                     return Mono.error(new ForbiddenException("You are not authorized to delete this test case"));
                                                 }
@@ -158,6 +168,14 @@ public class TestCaseService {
                 );
     }
 
+    /**
+     * Test cases of a question with their data read back from the blob store
+     */
+    private Flux<TestCase> loadTestCases(Long questionId) {
+        return testCaseRepository.findByQuestionId(questionId)
+                .concatMap(testDataStore::load);
+    }
+
     /**
      * Private helper to check if a user is the contest creator or a contest admin.
      * If authorized, it returns the provided 'saveOperation' Mono.
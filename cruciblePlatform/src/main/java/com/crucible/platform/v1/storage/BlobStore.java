@@ -0,0 +1,121 @@
+package com.crucible.platform.v1.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.luben.zstd.Zstd;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Content-addressed, zstd-compressed blob store on local disk.
+ *
+ * A blob is stored once under the SHA-256 of its uncompressed content, as
+ * {@code <dir>/<first two hex digits>/<hash>.zst}; storing the same content again is a no-op.
+ * Blobs are read by memory-mapping the compressed file and decompressing straight from the
+ * mapping. Every node that judges must see the same directory, so in a multi-node deployment
+ * {@code crucible.test-data.dir} has to be a shared volume.
+ */
+@Component
+public class BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStore.class);
+
+    private final Path root;
+    private final int compressionLevel;
+
+    public BlobStore(
+            @Value("${crucible.test-data.dir}") String dir,
+            @Value("${crucible.test-data.compression-level}") int compressionLevel) throws IOException {
+        this.root = Path.of(dir);
+        this.compressionLevel = compressionLevel;
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Reference to a stored blob: hash and uncompressed size in bytes
+     */
+    public record BlobRef(String hash, long size) {
+    }
+
+    public Mono<BlobRef> put(String content) {
+        return Mono.fromCallable(() -> write(content.getBytes(StandardCharsets.UTF_8)))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<String> read(String hash) {
+        return Mono.fromCallable(() -> new String(readBytes(hash), StandardCharsets.UTF_8))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private BlobRef write(byte[] content) throws IOException {
+        String hash = sha256(content);
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            return new BlobRef(hash, content.length);
+        }
+
+        Files.createDirectories(target.getParent());
+        Path staging = target.resolveSibling(hash + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(staging, Zstd.compress(content, compressionLevel));
+            // Publish atomically so concurrent readers never see a half-written blob
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Same content stored concurrently by another request
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+        logger.debug("Stored blob {} ({} bytes)", hash, content.length);
+        return new BlobRef(hash, content.length);
+    }
+
+    private byte[] readBytes(String hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathOf(hash), StandardOpenOption.READ)) {
+            MappedByteBuffer compressed = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long size = Zstd.getFrameContentSize(compressed);
+            if (size < 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Blob " + hash + " is corrupt or too large");
+            }
+            byte[] content = new byte[(int) size];
+            Zstd.decompress(content, compressed);
+            return content;
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("Blob " + hash + " not found in " + root, e);
+        }
+    }
+
+    private Path pathOf(String hash) {
+        if (!hash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid blob hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash + ".zst");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.crucible.platform.v1.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+import com.crucible.platform.v1.judge.TestSetCache;
+
+/**
+ * Moves test data still stored in the legacy test_cases.input / expected_output columns
+ * (rows from before V4 and the seed data) into the blob store, then clears those columns.
+ * Runs once per startup; rows already moved are skipped, so concurrent nodes are harmless.
+ *
+ * Judging may start before the migration ends: {@link TestDataStore} reads rows without a hash
+ * from the legacy columns, and every moved row invalidates its question's cached test set so
+ * that the new hashes are picked up.
+ */
+@Component
+public class TestDataMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestDataMigrator.class);
+
+    private final DatabaseClient databaseClient;
+    private final BlobStore blobStore;
+    private final TestSetCache testSetCache;
+
+    public TestDataMigrator(DatabaseClient databaseClient, BlobStore blobStore, TestSetCache testSetCache) {
+        this.databaseClient = databaseClient;
+        this.blobStore = blobStore;
+        this.testSetCache = testSetCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        databaseClient.sql("SELECT id, question_id FROM test_cases WHERE input_hash IS NULL")
+            .map(row -> new Long[] { row.get("id", Long.class), row.get("question_id", Long.class) })
+            .all()
+            // One row at a time keeps at most one test case's data on the heap
+            .concatMap(row -> migrateTestCase(row[0])
+                .flatMap(migrated -> migrated > 0
+                    ? testSetCache.invalidate(row[1]).thenReturn(migrated)
+                    : Mono.just(migrated)))
+            .reduce(0L, Long::sum)
+            .subscribe(
+                migrated -> {
+                    if (migrated > 0) {
+                        logger.info("Moved the data of {} test cases into the blob store", migrated);
+                    }
+                },
+                e -> logger.error("Failed to move test data into the blob store: {}", e.getMessage(), e));
+    }
+
+    private Mono<Long> migrateTestCase(Long id) {
+        return databaseClient.sql("SELECT input, expected_output FROM test_cases WHERE id = :id")
+            .bind("id", id)
+            .map(row -> new String[] { row.get("input", String.class), row.get("expected_output", String.class) })
+            .one()
+            .flatMap(data -> Mono.zip(
+                blobStore.put(data[0] != null ? data[0] : ""),
+                blobStore.put(data[1] != null ? data[1] : "")))
+            .flatMap(refs -> databaseClient.sql("""
+                    UPDATE test_cases
+                    SET input_hash = :inputHash, input_size = :inputSize,
+                        expected_output_hash = :expectedOutputHash, expected_output_size = :expectedOutputSize,
+                        input = NULL, expected_output = NULL
+                    WHERE id = :id AND input_hash IS NULL
+                    """)
+                .bind("inputHash", refs.getT1().hash())
+                .bind("inputSize", refs.getT1().size())
+                .bind("expectedOutputHash", refs.getT2().hash())
+                .bind("expectedOutputSize", refs.getT2().size())
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated());
+    }
+}
@@ -0,0 +1,81 @@
+package com.crucible.platform.v1.storage;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+import com.crucible.platform.v1.entity.TestCase;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Test case inputs and expected outputs, kept in the {@link BlobStore} and referenced from
+ * the test_cases rows by hash and size.
+ *
+ * Rows from before the blob store have no hash until {@link TestDataMigrator} gets to them;
+ * their data is read from the legacy columns meanwhile.
+ */
+@Component
+public class TestDataStore {
+
+    private final BlobStore blobStore;
+    private final DatabaseClient databaseClient;
+
+    public TestDataStore(BlobStore blobStore, DatabaseClient databaseClient) {
+        this.blobStore = blobStore;
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Store the test data and point the test case at it. The test case is not saved.
+     */
+    public Mono<TestCase> store(TestCase testCase, String input, String expectedOutput) {
+        return Mono.zip(blobStore.put(input), blobStore.put(expectedOutput))
+            .map(refs -> {
+                testCase.setInputHash(refs.getT1().hash());
+                testCase.setInputSize(refs.getT1().size());
+                testCase.setExpectedOutputHash(refs.getT2().hash());
+                testCase.setExpectedOutputSize(refs.getT2().size());
+                testCase.setInput(input);
+                testCase.setExpectedOutput(expectedOutput);
+                return testCase;
+            });
+    }
+
+    public Mono<String> input(TestCase testCase) {
+        return testCase.getInputHash() != null
+            ? blobStore.read(testCase.getInputHash())
+            : readUnmigrated(testCase.getId(), "input_hash", "input");
+    }
+
+    public Mono<String> expectedOutput(TestCase testCase) {
+        return testCase.getExpectedOutputHash() != null
+            ? blobStore.read(testCase.getExpectedOutputHash())
+            : readUnmigrated(testCase.getId(), "expected_output_hash", "expected_output");
+    }
+
+    /**
+     * Test data of a row loaded before it was migrated: from the blob store if it has been
+     * migrated since, otherwise from its legacy column
+     */
+    private Mono<String> readUnmigrated(Long id, String hashColumn, String dataColumn) {
+        return databaseClient.sql("SELECT " + hashColumn + ", " + dataColumn + " FROM test_cases WHERE id = :id")
+            .bind("id", id)
+            .map(row -> new String[] { row.get(hashColumn, String.class), row.get(dataColumn, String.class) })
+            .one()
+            .flatMap(data -> data[0] != null
+                ? blobStore.read(data[0])
+                : Mono.just(data[1] != null ? data[1] : ""));
+    }
+
+    /**
+     * Fill in the input and expected output of a test case loaded from the database
+     */
+    public Mono<TestCase> load(TestCase testCase) {
+        return Mono.zip(input(testCase), expectedOutput(testCase))
+            .map(data -> {
+                testCase.setInput(data.getT1());
+                testCase.setExpectedOutput(data.getT2());
+                return testCase;
+            });
+    }
+}
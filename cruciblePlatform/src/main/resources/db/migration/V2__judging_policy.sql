@@ -0,0 +1,5 @@
+-- judging policy: 'full' runs every hidden test case, 'fail-fast' stops at the
+-- first failure. NULL on a question inherits the contest, NULL on a contest
+-- inherits crucible.judge.default-policy.
+ALTER TABLE contests ADD COLUMN judging_policy VARCHAR(20);
+ALTER TABLE questions ADD COLUMN judging_policy VARCHAR(20);
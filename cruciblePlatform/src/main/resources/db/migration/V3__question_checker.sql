@@ -0,0 +1,4 @@
+-- output checker per question: 'exact' (default when NULL), 'tokens' or 'float';
+-- checker_epsilon is the absolute/relative tolerance of the float checker
+ALTER TABLE questions ADD COLUMN checker VARCHAR(20);
+ALTER TABLE questions ADD COLUMN checker_epsilon DOUBLE PRECISION;
@@ -0,0 +1,10 @@
+-- test case data moves to the on-disk blob store (crucible.test-data.dir); rows keep the
+-- SHA-256 and size of each blob. Existing rows are moved by TestDataMigrator at startup,
+-- which clears the legacy TEXT columns.
+ALTER TABLE test_cases ADD COLUMN input_hash CHAR(64);
+ALTER TABLE test_cases ADD COLUMN input_size BIGINT;
+ALTER TABLE test_cases ADD COLUMN expected_output_hash CHAR(64);
+ALTER TABLE test_cases ADD COLUMN expected_output_size BIGINT;
+
+ALTER TABLE test_cases ALTER COLUMN input DROP NOT NULL;
+ALTER TABLE test_cases ALTER COLUMN expected_output DROP NOT NULL;
@@ -0,0 +1,24 @@
+-- bulk rejudges of a contest or one of its questions. Submissions are regraded in id order up
+-- to max_submission_id (later ones were judged against the fixed test set already), and
+-- checkpoint_submission_id records how far a job got so that it can be resumed.
+CREATE TABLE rejudge_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    contest_id BIGINT NOT NULL REFERENCES contests(id) ON DELETE CASCADE,
+    question_id BIGINT REFERENCES questions(id) ON DELETE CASCADE, -- NULL: every question of the contest
+    requested_by BIGINT REFERENCES users(id),
+    status VARCHAR(20) NOT NULL, -- running | paused | completed | failed
+    max_submission_id BIGINT NOT NULL,
+    checkpoint_submission_id BIGINT NOT NULL DEFAULT 0,
+    total_submissions INT NOT NULL DEFAULT 0,
+    processed_submissions INT NOT NULL DEFAULT 0,
+    changed_verdicts INT NOT NULL DEFAULT 0,
+    failed_submissions INT NOT NULL DEFAULT 0,
+    message TEXT,
+    owner VARCHAR(64), -- run currently driving the job; a resume elsewhere replaces it
+    heartbeat_at TIMESTAMP, -- last checkpoint of the owner
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_rejudge_jobs_contest_id ON rejudge_jobs(contest_id);
+CREATE INDEX idx_submissions_contest_id ON submissions(contest_id);
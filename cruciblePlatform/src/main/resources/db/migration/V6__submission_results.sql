@@ -0,0 +1,22 @@
+-- one compact row per test case of a graded submission, replacing the report that used to be
+-- written to submissions.output. Outputs are kept as previews of at most
+-- crucible.judge.results.preview-bytes each; output_truncated marks a cut preview.
+-- submissions.output is no longer written and only holds the reports of older submissions.
+CREATE TABLE submission_results (
+    id BIGSERIAL PRIMARY KEY,
+    submission_id BIGINT NOT NULL REFERENCES submissions(id) ON DELETE CASCADE,
+    test_case_number INT NOT NULL,
+    verdict VARCHAR(32) NOT NULL, -- PASSED | WRONG_ANSWER | RUNTIME_ERROR | COMPILATION_ERROR | EXECUTION_ERROR | SKIPPED
+    is_sample BOOLEAN NOT NULL DEFAULT FALSE,
+    runtime_ms BIGINT,
+    exit_code INT,
+    input_preview TEXT,
+    expected_output_preview TEXT,
+    actual_output_preview TEXT,
+    output_truncated BOOLEAN NOT NULL DEFAULT FALSE,
+    message TEXT, -- checker mismatch or execution error, also capped
+    UNIQUE (submission_id, test_case_number)
+);
+
+ALTER TABLE submissions ADD COLUMN passed_test_cases INT;
+ALTER TABLE submissions ADD COLUMN total_test_cases INT;
@@ -0,0 +1,8 @@
+-- per-question run limits; NULL falls back to crucible.judge.limits.*
+ALTER TABLE questions ADD COLUMN time_limit_ms INT;
+ALTER TABLE questions ADD COLUMN memory_limit_mb INT;
+
+-- resource usage per test case as reported by the executor; runtime_ms is the wall time.
+-- verdict may now also be TIME_LIMIT_EXCEEDED or MEMORY_LIMIT_EXCEEDED
+ALTER TABLE submission_results ADD COLUMN cpu_time_ms BIGINT;
+ALTER TABLE submission_results ADD COLUMN memory_bytes BIGINT;
@@ -0,0 +1,9 @@
+-- leases of async judge workers on pending submissions. A worker owns a submission while its
+-- lease has not expired and renews the lease while grading; expired leases are reclaimed and
+-- the submission queued again. judge_attempts counts leases, so that a submission that keeps
+-- killing its workers is eventually given up.
+ALTER TABLE submissions ADD COLUMN lease_owner VARCHAR(64);
+ALTER TABLE submissions ADD COLUMN lease_expires_at TIMESTAMP;
+ALTER TABLE submissions ADD COLUMN judge_attempts INT NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_submissions_pending_lease ON submissions(lease_expires_at) WHERE status = 'Pending';
@@ -0,0 +1,12 @@
+-- indexes behind the set-based leaderboard query (UserContestRepository.STANDINGS), so that
+-- each of its scans is index-only: first solves are grouped straight off the partial index in
+-- (user_id, question_id) order, participants come from (contest_id, user_id), and usernames
+-- from the covering index on users.
+CREATE INDEX idx_submissions_contest_accepted
+    ON submissions(contest_id, user_id, question_id, created_at) WHERE status = 'Accepted';
+
+-- replaces idx_user_contests_contest_id, which is a prefix of it
+CREATE INDEX idx_user_contests_contest_user ON user_contests(contest_id, user_id);
+DROP INDEX idx_user_contests_contest_id;
+
+CREATE INDEX idx_users_id_username ON users(id) INCLUDE (username);
@@ -0,0 +1,296 @@
+/*
+ * Crucible batch harness, prepended to C and C++ submissions so that one compilation
+ * can be run against every test input inside a single sandbox execution.
+ *
+ * The constructor runs before the submission's own static initialisers and main().
+ * It reads the framed batch from stdin one input at a time and forks once per input: the
+ * child gets the input as its stdin and returns into the normal program startup, while the
+ * parent streams the child's stdout out between two markers and adds the child's exit status
+ * and usage to the closing one. The parent never reaches main(), so every run starts from
+ * pristine program state.
+ *
+ * Only libc symbols are declared (under private names) so the submission keeps a
+ * clean global namespace regardless of what it includes or #defines afterwards.
+ *
+ * stdin:  "CRUCIBLE-BATCH <boundary> <count> <timeout ms> <fail fast>\n" then per input "<bytes>\n<data>"
+ * stdout: per input "\n@@<boundary> <index> start\n<stdout>"
+ *         "\n@@<boundary> <index> <exit code> <signal> <wall ms> <cpu ms> <max rss kB>\n",
+ *         then "\n@@<boundary> end\n"
+ *
+ * The boundary is what keeps a submission from forging results, so a child never sees it:
+ * the parent keeps it in one small buffer that the child wipes, along with the read buffer,
+ * before returning into the program, and the parent is not dumpable, so a child can't read
+ * it through /proc either.
+ *
+ * With fail fast set to 1 the batch ends after the first input that exits non-zero or is
+ * killed, and the inputs after it get no markers at all.
+ *
+ * Usage comes from wait4 on the child. Its peak RSS includes the pages it shares with the
+ * parent at fork time, so the parent never holds more of the batch than one read buffer.
+ */
+typedef struct { long tv_sec; long tv_usec; } crucible_timeval_t;
+typedef struct { crucible_timeval_t it_interval; crucible_timeval_t it_value; } crucible_itimerval_t;
+/* struct rusage: the two times, ru_maxrss, then 13 more longs */
+typedef struct { crucible_timeval_t utime; crucible_timeval_t stime; long maxrss; long rest[13]; } crucible_rusage_t;
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+long crucible_read(int, void *, unsigned long) __asm__("read");
+long crucible_write(int, const void *, unsigned long) __asm__("write");
+int crucible_open(const char *, int, ...) __asm__("open");
+int crucible_close(int) __asm__("close");
+int crucible_unlink(const char *) __asm__("unlink");
+long crucible_lseek(int, long, int) __asm__("lseek");
+int crucible_pipe(int *) __asm__("pipe");
+int crucible_dup2(int, int) __asm__("dup2");
+int crucible_fork(void) __asm__("fork");
+int crucible_wait4(int, int *, int, crucible_rusage_t *) __asm__("wait4");
+int crucible_gettimeofday(crucible_timeval_t *, void *) __asm__("gettimeofday");
+int crucible_setitimer(int, const crucible_itimerval_t *, crucible_itimerval_t *) __asm__("setitimer");
+int crucible_prctl(int, ...) __asm__("prctl");
+void crucible_exit(int) __asm__("_exit");
+#ifdef __cplusplus
+}
+#endif
+
+#define CRUCIBLE_OUTPUT_CAP (64L * 1024 * 1024)
+#define CRUCIBLE_STDIN_FILE "crucible_stdin.tmp"
+#define CRUCIBLE_BUFFER_SIZE (1 << 16)
+#define CRUCIBLE_BOUNDARY_MAX 64
+#define CRUCIBLE_PR_SET_DUMPABLE 4
+
+/* Unread part of the batch on stdin */
+static char crucible_in[CRUCIBLE_BUFFER_SIZE];
+static long crucible_in_pos;
+static long crucible_in_length;
+static char crucible_boundary[CRUCIBLE_BOUNDARY_MAX];
+static long crucible_boundary_length;
+
+static void crucible_write_all(int fd, const char *buf, long len) {
+    while (len > 0) {
+        long written = crucible_write(fd, buf, (unsigned long) len);
+        if (written <= 0) {
+            crucible_exit(3);
+        }
+        buf += written;
+        len -= written;
+    }
+}
+
+static void crucible_write_long(long value) {
+    char digits[24];
+    int i = 24;
+    unsigned long magnitude = value < 0 ? 0UL - (unsigned long) value : (unsigned long) value;
+    do {
+        digits[--i] = (char) ('0' + magnitude % 10);
+        magnitude /= 10;
+    } while (magnitude > 0);
+    if (value < 0) {
+        digits[--i] = '-';
+    }
+    crucible_write_all(1, digits + i, 24 - i);
+}
+
+static void crucible_write_marker(long index) {
+    crucible_write_all(1, "\n@@", 3);
+    crucible_write_all(1, crucible_boundary, crucible_boundary_length);
+    if (index >= 0) {
+        crucible_write_all(1, " ", 1);
+        crucible_write_long(index);
+    }
+}
+
+static void crucible_wipe(volatile char *buf, long length) {
+    while (length-- > 0) {
+        *buf++ = 0;
+    }
+}
+
+static long crucible_millis(const crucible_timeval_t *time) {
+    return time->tv_sec * 1000 + time->tv_usec / 1000;
+}
+
+/* Next byte of the batch, or -1 at its end */
+static int crucible_next(void) {
+    if (crucible_in_pos == crucible_in_length) {
+        long n = crucible_read(0, crucible_in, CRUCIBLE_BUFFER_SIZE);
+        if (n < 0) {
+            crucible_exit(3);
+        }
+        if (n == 0) {
+            return -1;
+        }
+        crucible_in_pos = 0;
+        crucible_in_length = n;
+    }
+    return (unsigned char) crucible_in[crucible_in_pos++];
+}
+
+static long crucible_parse_long(void) {
+    long value = 0;
+    int c = crucible_next();
+    while (c >= '0' && c <= '9') {
+        value = value * 10 + (c - '0');
+        c = crucible_next();
+    }
+    /* c is the separator */
+    return value;
+}
+
+/* Copy the next length bytes of the batch to fd */
+static void crucible_copy_input(int fd, long length) {
+    while (length > 0) {
+        long chunk;
+        if (crucible_in_pos == crucible_in_length && crucible_next() >= 0) {
+            crucible_in_pos--;
+        }
+        chunk = crucible_in_length - crucible_in_pos;
+        if (chunk <= 0) {
+            crucible_exit(2);
+        }
+        if (chunk > length) {
+            chunk = length;
+        }
+        crucible_write_all(fd, crucible_in + crucible_in_pos, chunk);
+        crucible_in_pos += chunk;
+        length -= chunk;
+    }
+}
+
+/* Forward up to the output cap of what the child writes, and drain the rest so it never blocks */
+static void crucible_forward_output(int fd) {
+    static char buf[CRUCIBLE_BUFFER_SIZE];
+    long forwarded = 0;
+    for (;;) {
+        long n = crucible_read(fd, buf, sizeof(buf));
+        if (n < 0) {
+            crucible_exit(3);
+        }
+        if (n == 0) {
+            return;
+        }
+        if (forwarded < CRUCIBLE_OUTPUT_CAP) {
+            long kept = n < CRUCIBLE_OUTPUT_CAP - forwarded ? n : CRUCIBLE_OUTPUT_CAP - forwarded;
+            crucible_write_all(1, buf, kept);
+            forwarded += kept;
+        }
+    }
+}
+
+/* Read the rest of the batch, so that whoever writes it doesn't see a broken pipe */
+static void crucible_drain(void) {
+    crucible_in_pos = crucible_in_length;
+    while (crucible_next() >= 0) {
+        crucible_in_pos = crucible_in_length;
+    }
+}
+
+__attribute__((constructor(101)))
+static void crucible_batch_main(void) {
+    static const char magic[] = "CRUCIBLE-BATCH ";
+    long count;
+    long timeout_ms;
+    long fail_fast;
+    long index;
+    int c;
+    int i;
+
+    for (i = 0; magic[i] != '\0'; i++) {
+        if (crucible_next() != magic[i]) {
+            crucible_write_all(2, "crucible: stdin is not a batch\n", 31);
+            crucible_exit(2);
+        }
+    }
+    crucible_prctl(CRUCIBLE_PR_SET_DUMPABLE, 0L, 0L, 0L, 0L);
+    for (c = crucible_next(); c >= 0 && c != ' '; c = crucible_next()) {
+        if (crucible_boundary_length == CRUCIBLE_BOUNDARY_MAX) {
+            crucible_exit(2);
+        }
+        crucible_boundary[crucible_boundary_length++] = (char) c;
+    }
+    count = crucible_parse_long();
+    timeout_ms = crucible_parse_long();
+    fail_fast = crucible_parse_long();
+
+    for (index = 0; index < count; index++) {
+        long input_length = crucible_parse_long();
+        int input_fd;
+        int out_pipe[2];
+        int pid;
+        int status = 0;
+        crucible_timeval_t started;
+        crucible_timeval_t finished;
+        crucible_rusage_t usage;
+
+        input_fd = crucible_open(CRUCIBLE_STDIN_FILE, 02 | 0100 | 01000, 0600);
+        if (input_fd < 0) {
+            crucible_exit(4);
+        }
+        crucible_unlink(CRUCIBLE_STDIN_FILE);
+        crucible_copy_input(input_fd, input_length);
+        crucible_lseek(input_fd, 0, 0);
+        if (crucible_pipe(out_pipe) != 0) {
+            crucible_exit(4);
+        }
+
+        crucible_write_marker(index);
+        crucible_write_all(1, " start\n", 7);
+
+        crucible_gettimeofday(&started, 0);
+        pid = crucible_fork();
+        if (pid < 0) {
+            crucible_exit(4);
+        }
+        if (pid == 0) {
+            crucible_itimerval_t timer;
+            crucible_wipe(crucible_boundary, CRUCIBLE_BOUNDARY_MAX);
+            crucible_wipe(crucible_in, CRUCIBLE_BUFFER_SIZE);
+            crucible_dup2(input_fd, 0);
+            crucible_dup2(out_pipe[1], 1);
+            crucible_close(input_fd);
+            crucible_close(out_pipe[0]);
+            crucible_close(out_pipe[1]);
+            timer.it_interval.tv_sec = 0;
+            timer.it_interval.tv_usec = 0;
+            timer.it_value.tv_sec = timeout_ms / 1000;
+            timer.it_value.tv_usec = (timeout_ms % 1000) * 1000;
+            if (timeout_ms > 0) {
+                crucible_setitimer(0, &timer, 0); /* ITIMER_REAL, SIGALRM ends the run */
+            }
+            return; /* continue into the submission's startup and main() */
+        }
+
+        crucible_close(input_fd);
+        crucible_close(out_pipe[1]);
+        crucible_forward_output(out_pipe[0]);
+        crucible_close(out_pipe[0]);
+        usage.maxrss = 0;
+        if (crucible_wait4(pid, &status, 0, &usage) < 0) {
+            crucible_exit(4);
+        }
+        crucible_gettimeofday(&finished, 0);
+
+        crucible_write_marker(index);
+        crucible_write_all(1, " ", 1);
+        crucible_write_long((status & 0x7f) == 0 ? (status >> 8) & 0xff : -1);
+        crucible_write_all(1, " ", 1);
+        crucible_write_long((status & 0x7f) == 0 ? 0 : status & 0x7f);
+        crucible_write_all(1, " ", 1);
+        crucible_write_long(crucible_millis(&finished) - crucible_millis(&started));
+        crucible_write_all(1, " ", 1);
+        crucible_write_long(crucible_millis(&usage.utime) + crucible_millis(&usage.stime));
+        crucible_write_all(1, " ", 1);
+        crucible_write_long(usage.maxrss);
+        crucible_write_all(1, "\n", 1);
+
+        if (fail_fast && status != 0) {
+            break;
+        }
+    }
+
+    crucible_drain();
+    crucible_write_marker(-1);
+    crucible_write_all(1, " end\n", 5);
+    crucible_exit(0);
+}
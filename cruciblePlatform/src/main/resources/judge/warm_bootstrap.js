@@ -0,0 +1,32 @@
+// Crucible warm runtime for JavaScript, kept running by the local executor's warm pool so that
+// a run does not wait for Node startup.
+//
+// The worker boots and blocks on stdin. A run sends
+// "<cpu seconds> <address space bytes> <limit address space 0|1>\n" followed by the test input;
+// the worker runs main.js from its working directory as the main module, reading the rest of
+// stdin as its input. Node can't lower its own rlimits, so the executor's timeout and the
+// pool's CPU ceiling bound the run. Every worker serves exactly one run.
+'use strict';
+
+const fs = require('fs');
+const path = require('path');
+const Module = require('module');
+
+function crucibleReadHeader() {
+    const byte = Buffer.alloc(1);
+    let line = '';
+    for (;;) {
+        if (fs.readSync(0, byte, 0, 1, null) === 0) {
+            process.exit(70);
+        }
+        const c = byte.toString('latin1');
+        if (c === '\n') {
+            return line;
+        }
+        line += c;
+    }
+}
+
+crucibleReadHeader();
+process.argv[1] = path.resolve('main.js');
+Module.runMain();
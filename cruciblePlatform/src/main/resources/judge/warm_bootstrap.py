@@ -0,0 +1,43 @@
+# Crucible warm runtime for Python, kept running by the local executor's warm pool so that a
+# run does not wait for interpreter startup.
+#
+# The worker boots, imports what most submissions import, and blocks on stdin. A run sends
+# "<cpu seconds> <address space bytes> <limit address space 0|1>\n" followed by the test input;
+# the worker applies the limits and runs main.py from its working directory as __main__,
+# reading the rest of stdin as its input. Every worker serves exactly one run.
+import os
+import sys
+
+import bisect
+import collections
+import functools
+import heapq
+import itertools
+import math
+import re
+import resource
+import runpy
+import string
+
+
+def _crucible_read_header():
+    line = b""
+    while not line.endswith(b"\n"):
+        byte = os.read(0, 1)
+        if not byte:
+            os._exit(70)
+        line += byte
+    return line.decode("ascii").split()
+
+
+_cpu_seconds, _address_space, _limit_address_space = _crucible_read_header()
+if int(_cpu_seconds) > 0:
+    # SIGXCPU at the soft limit, like the prlimit of a cold run
+    resource.setrlimit(resource.RLIMIT_CPU, (int(_cpu_seconds), int(_cpu_seconds) + 1))
+if _limit_address_space == "1":
+    resource.setrlimit(resource.RLIMIT_AS, (int(_address_space), int(_address_space)))
+
+sys.argv = ["main.py"]
+sys.path[0] = os.getcwd()
+del _cpu_seconds, _address_space, _limit_address_space, _crucible_read_header
+runpy.run_path("main.py", run_name="__main__")
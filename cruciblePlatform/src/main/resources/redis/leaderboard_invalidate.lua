@@ -0,0 +1,9 @@
+-- Drops a contest's ranking so that the next read rebuilds it from the database, and moves
+-- the generation on so that rebuilds already running stop writing.
+--
+-- KEYS: ready marker, generation counter, ranking, solves hash
+-- ARGV: ttl seconds
+redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[2], ARGV[1])
+redis.call('DEL', KEYS[1], KEYS[3], KEYS[4])
+return 1
@@ -0,0 +1,13 @@
+-- Marks a contest's ranking as complete once a rebuild has loaded it, unless it was
+-- invalidated since the rebuild read the generation. The ranking keys get the same ttl, so
+-- the marker never outlives them.
+--
+-- KEYS: ready marker, generation counter, ranking, solves hash
+-- ARGV: generation the rebuild read, ttl seconds
+if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then
+  return 0
+end
+redis.call('SET', KEYS[1], '1', 'EX', ARGV[2])
+redis.call('EXPIRE', KEYS[3], ARGV[2])
+redis.call('EXPIRE', KEYS[4], ARGV[2])
+return 1
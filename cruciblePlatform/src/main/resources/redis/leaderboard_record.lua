@@ -0,0 +1,70 @@
+-- Adds a participant to a contest's ranking, or records their accepted solve of a question.
+-- The score packs points, solved questions and the time of the latest first solve into one
+-- integer that a double holds exactly, as LeaderboardScore describes:
+--   points * 2^33 + solved * 2^23 + (2^23 - 1 - seconds since contest start)
+-- so that more points, then more solves, then an earlier last solve rank higher.
+--
+-- The solves hash keeps, per participant, the earliest solve time of every question as a
+-- JSON object. A solve of a new question adds its points; an earlier solve of a known
+-- question, whose verdict came in after a later one, only moves that question's time back.
+-- The latest first solve is recomputed from the object, so recording the same solves again,
+-- in any order, gives the same score.
+--
+-- The ranking and the solves hash always get their ttl together. A hash that expired before
+-- its ranking would let a rebuild count every solve a second time.
+--
+-- KEYS: ranking (sorted set), solves (hash of user id to question id to seconds), generation
+--       counter
+-- ARGV: generation the caller read ('' for any), user id, question id ('' to only add the
+--       participant), points, seconds since contest start, ttl seconds
+-- Returns 1 if the ranking changed, 0 if not, -1 if the generation moved on.
+local POINTS = 8589934592
+local SOLVED = 8388608
+
+if ARGV[1] ~= '' and (redis.call('GET', KEYS[3]) or '0') ~= ARGV[1] then
+  return -1
+end
+
+local current = redis.call('ZSCORE', KEYS[1], ARGV[2])
+local ttl = tonumber(ARGV[6])
+if ARGV[3] == '' then
+  if current then
+    return 0
+  end
+  redis.call('ZADD', KEYS[1], 0, ARGV[2])
+  redis.call('EXPIRE', KEYS[1], ttl)
+  redis.call('EXPIRE', KEYS[2], ttl)
+  return 1
+end
+
+-- Only participants are ranked; one not loaded yet is picked up by the next rebuild
+if not current then
+  return 0
+end
+
+local stored = redis.call('HGET', KEYS[2], ARGV[2])
+local solves = stored and cjson.decode(stored) or {}
+local elapsed = tonumber(ARGV[5])
+local known = solves[ARGV[3]]
+if known and known <= elapsed then
+  return 0
+end
+solves[ARGV[3]] = elapsed
+
+local score = tonumber(current)
+local points = math.floor(score / POINTS)
+local solved = math.floor(score / SOLVED) % 1024
+if not known then
+  points = math.min(points + tonumber(ARGV[4]), 1048575)
+  solved = math.min(solved + 1, 1023)
+end
+local latest = 0
+for _, seconds in pairs(solves) do
+  latest = math.max(latest, seconds)
+end
+
+redis.call('HSET', KEYS[2], ARGV[2], cjson.encode(solves))
+redis.call('ZADD', KEYS[1], string.format('%.0f', points * POINTS + solved * SOLVED + (SOLVED - 1 - latest)), ARGV[2])
+redis.call('EXPIRE', KEYS[1], ttl)
+redis.call('EXPIRE', KEYS[2], ttl)
+return 1
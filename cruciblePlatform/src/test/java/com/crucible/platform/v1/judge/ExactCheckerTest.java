@@ -0,0 +1,84 @@
+package com.crucible.platform.v1.judge;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExactCheckerTest {
+
+    private final ExactChecker checker = ExactChecker.INSTANCE;
+
+    @Test
+    void agreesWithTrimmedEquality() {
+        String[][] cases = {
+            {"42", "42"},
+            {"42", "42\n"},
+            {"42\n", "  42  \r\n"},
+            {"1 2\n3 4", "1 2\n3 4\n\n"},
+            {"1 2\n3 4", "1 2 \n3 4"},
+            {"1 2\n3 4", "1 2\r\n3 4"},
+            {"a\tb", "a b"},
+            {"\u0001x\u001f", "x"},
+            {"", "   \n"},
+            {"", "0"},
+            {"abc", "ab"},
+            {"ab", "abc"},
+        };
+        for (String[] c : cases) {
+            boolean expected = c[1].trim().equals(c[0].trim());
+            assertEquals(expected, checker.check(c[0], c[1]).isPassed(),
+                () -> "expected " + c[0].replace("\n", "\\n") + ", actual " + c[1].replace("\n", "\\n"));
+        }
+    }
+
+    @Test
+    void acceptedResultHasNoMessage() {
+        CheckResult result = checker.check("1 2 3\n", "1 2 3");
+
+        assertTrue(result.isPassed());
+        assertNull(result.getMessage());
+    }
+
+    @Test
+    void mismatchLocatesLineAndColumn() {
+        CheckResult result = checker.check("1 2\n3 4\n", "1 2\n3 5\n");
+
+        assertFalse(result.isPassed());
+        assertEquals("Line 2, column 3: expected '4', got '5'", result.getMessage());
+    }
+
+    @Test
+    void mismatchShowsRestOfLine() {
+        CheckResult result = checker.check("hello world\nnext", "hello there\nnext");
+
+        assertEquals("Line 1, column 7: expected 'world', got 'there'", result.getMessage());
+    }
+
+    @Test
+    void shorterOutputIsReportedAsEndOfOutput() {
+        CheckResult result = checker.check("1 2 3", "1 2");
+
+        assertFalse(result.isPassed());
+        assertEquals("Line 1, column 4: expected ' 3', got end of output", result.getMessage());
+    }
+
+    @Test
+    void missingLineIsReportedAtTheLineBreak() {
+        assertEquals("Line 1, column 4: expected end of line, got end of output",
+            checker.check("1 2\n3", "1 2\n").getMessage());
+        assertEquals("Line 1, column 2: expected end of line, got '2'",
+            checker.check("1\n2", "12").getMessage());
+    }
+
+    @Test
+    void longFragmentsAreShortened() {
+        String expected = "x".repeat(100);
+        String actual = "y".repeat(100);
+
+        assertEquals("Line 1, column 1: expected '" + "x".repeat(32) + "...', got '" + "y".repeat(32) + "...'",
+            checker.check(expected, actual).getMessage());
+    }
+}
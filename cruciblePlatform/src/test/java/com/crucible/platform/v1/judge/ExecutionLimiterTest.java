@@ -0,0 +1,141 @@
+package com.crucible.platform.v1.judge;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutionLimiterTest {
+
+    // One slot per lane, so everything queued behind a held slot starts in scheduling order
+    private final ExecutionLimiter limiter = new ExecutionLimiter(
+        new MockEnvironment().withProperty("crucible.judge.concurrency.languages.cpp", "1"),
+        new SimpleMeterRegistry(), 1);
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    void higherClassStartsFirst() {
+        Sinks.Empty<Void> hold = holdSlot("python");
+        queue("python", ExecutionPriority.REJUDGE, 1L, 1, "rejudge");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "practice");
+        queue("python", ExecutionPriority.CONTEST_RUN, 3L, 1, "run");
+        queue("python", ExecutionPriority.CONTEST_SUBMIT, 4L, 1, "submit");
+        assertEquals(4, limiter.getQueued());
+        assertEquals(1, limiter.getQueued(ExecutionPriority.REJUDGE));
+
+        hold.tryEmitEmpty();
+
+        assertEquals(List.of("submit", "run", "practice", "rejudge"), started);
+        assertEquals(0, limiter.getQueued());
+        assertEquals(0, limiter.getRunning());
+    }
+
+    @Test
+    void usersAreInterleavedWithinAClass() {
+        Sinks.Empty<Void> hold = holdSlot("python");
+        queue("python", ExecutionPriority.PRACTICE, 1L, 1, "a1");
+        queue("python", ExecutionPriority.PRACTICE, 1L, 1, "a2");
+        queue("python", ExecutionPriority.PRACTICE, 1L, 1, "a3");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "b1");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "b2");
+
+        hold.tryEmitEmpty();
+
+        assertEquals(List.of("a1", "b1", "a2", "b2", "a3"), started);
+    }
+
+    @Test
+    void costlyExecutionsWaitForTheirShare() {
+        Sinks.Empty<Void> hold = holdSlot("python");
+        queue("python", ExecutionPriority.PRACTICE, 1L, 4, "batch");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "b1");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "b2");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "b3");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "b4");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "b5");
+
+        hold.tryEmitEmpty();
+
+        // The batch finishes its share at 4, the same as the fourth single execution, and was queued first
+        assertEquals(List.of("b1", "b2", "b3", "batch", "b4", "b5"), started);
+    }
+
+    @Test
+    void cancellingAQueuedExecutionRemovesIt() {
+        Sinks.Empty<Void> hold = holdSlot("python");
+        Disposable cancelled = queue("python", ExecutionPriority.PRACTICE, 1L, 1, "cancelled");
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "kept");
+        assertEquals(2, limiter.getQueued());
+
+        cancelled.dispose();
+        assertEquals(1, limiter.getQueued());
+        hold.tryEmitEmpty();
+
+        assertEquals(List.of("kept"), started);
+        assertEquals(0, limiter.getRunning());
+    }
+
+    @Test
+    void cancellingARunningExecutionFreesItsSlot() {
+        Disposable running = limiter.run("python", new ExecutionLimiter.Ticket(ExecutionPriority.PRACTICE, 1L),
+            Mono.never()).subscribe();
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "next");
+        assertEquals(1, limiter.getRunning());
+        assertTrue(started.isEmpty());
+
+        running.dispose();
+
+        assertEquals(List.of("next"), started);
+        assertEquals(0, limiter.getRunning());
+    }
+
+    @Test
+    void failedExecutionFreesItsSlot() {
+        List<Throwable> errors = new ArrayList<>();
+        Sinks.Empty<Void> hold = holdSlot("python");
+        limiter.run("python", new ExecutionLimiter.Ticket(ExecutionPriority.PRACTICE, 1L),
+            Mono.error(new IllegalStateException("boom"))).subscribe(null, errors::add);
+        queue("python", ExecutionPriority.PRACTICE, 2L, 1, "next");
+
+        hold.tryEmitEmpty();
+
+        assertEquals(1, errors.size());
+        assertEquals(List.of("next"), started);
+        assertEquals(0, limiter.getRunning());
+    }
+
+    @Test
+    void languagesWithABudgetHaveTheirOwnLane() {
+        Sinks.Empty<Void> hold = holdSlot("cpp");
+        queue("cpp", ExecutionPriority.PRACTICE, 1L, 1, "cpp");
+        queue("python", ExecutionPriority.PRACTICE, 1L, 1, "python");
+        queue("java", ExecutionPriority.PRACTICE, 1L, 1, "java");
+
+        assertEquals(List.of("python", "java"), started);
+        hold.tryEmitEmpty();
+        assertEquals(List.of("python", "java", "cpp"), started);
+    }
+
+    /**
+     * Occupy the lane's only slot until the returned sink completes
+     */
+    private Sinks.Empty<Void> holdSlot(String language) {
+        Sinks.Empty<Void> hold = Sinks.empty();
+        limiter.run(language, new ExecutionLimiter.Ticket(ExecutionPriority.CONTEST_SUBMIT, 0L), hold.asMono())
+            .subscribe();
+        return hold;
+    }
+
+    private Disposable queue(String language, ExecutionPriority priority, Long userId, int cost, String name) {
+        return limiter.run(language, new ExecutionLimiter.Ticket(priority, userId), cost,
+            Mono.fromRunnable(() -> started.add(name))).subscribe();
+    }
+}
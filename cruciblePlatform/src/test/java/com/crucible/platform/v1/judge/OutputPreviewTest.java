@@ -0,0 +1,70 @@
+package com.crucible.platform.v1.judge;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputPreviewTest {
+
+    private final OutputPreview preview = new OutputPreview(8);
+
+    @Test
+    void shortTextIsKept() {
+        assertEquals("12345678", preview.of("12345678"));
+        assertFalse(preview.exceeds("12345678"));
+        assertEquals("é", preview.of("é"));
+        assertFalse(preview.exceeds("é"));
+    }
+
+    @Test
+    void longTextIsCutToMaxBytes() {
+        assertEquals("12345678", preview.of("123456789"));
+        assertTrue(preview.exceeds("123456789"));
+    }
+
+    @Test
+    void emptyAndNullAreKept() {
+        assertEquals("", preview.of(""));
+        assertFalse(preview.exceeds(""));
+        assertNull(preview.of(null));
+        assertFalse(preview.exceeds(null));
+    }
+
+    @Test
+    void cutNeverSplitsACharacter() {
+        // Two bytes each: the fifth would end at byte 10
+        assertEquals("éééé", preview.of("ééééé"));
+        // Three bytes each: the third would end at byte 9
+        assertEquals("€€", preview.of("€€€"));
+        // A four-byte code point is a surrogate pair in Java; both halves stay or go together
+        assertEquals("1234567", preview.of("1234567😀"));
+        assertEquals("1234😀", preview.of("1234😀5"));
+    }
+
+    @Test
+    void multiByteTextFittingExactlyIsKept() {
+        assertEquals("éééé", preview.of("éééé"));
+        assertFalse(preview.exceeds("éééé"));
+        assertEquals("12€é", preview.of("12€é"));
+        assertFalse(preview.exceeds("12€é"));
+        // Fewer chars than the limit, more bytes
+        assertTrue(preview.exceeds("😀😀1"));
+    }
+
+    @Test
+    void truncatedExactlyWhenThePreviewIsShorter() {
+        for (String text : List.of("", "a", "12345678", "123456789", "éééé", "ééééé", "€€", "€€€",
+                "1234567😀", "1234😀", "😀😀", "😀😀1")) {
+            String cut = preview.of(text);
+            assertTrue(cut.getBytes(StandardCharsets.UTF_8).length <= 8, text);
+            assertTrue(text.startsWith(cut), text);
+            assertEquals(!cut.equals(text), preview.exceeds(text), text);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.crucible.platform.v1.judge;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenCheckerTest {
+
+    private final TokenChecker tokens = new TokenChecker(null);
+    private final TokenChecker floats = new TokenChecker(1e-6);
+
+    @Test
+    void anyWhitespaceSeparatesTokens() {
+        assertTrue(tokens.check("1 2\n3", "1\t2   3\r\n\n").isPassed());
+        assertTrue(tokens.check("1 2 3", "\n1\n2\n3").isPassed());
+        assertTrue(tokens.check("", " \n ").isPassed());
+    }
+
+    @Test
+    void tokensMustMatchExactlyWithoutEpsilon() {
+        assertFalse(tokens.check("1", "1.0").isPassed());
+        assertFalse(tokens.check("12", "1 2").isPassed());
+        assertFalse(tokens.check("Yes", "yes").isPassed());
+    }
+
+    @Test
+    void numbersWithinAbsoluteEpsilonAreEqual() {
+        assertTrue(floats.check("0.1", "0.1000005").isPassed());
+        assertTrue(floats.check("0.1", "0.0999995").isPassed());
+        assertTrue(floats.check("1", "1.0").isPassed());
+        assertTrue(floats.check("0", "-0.0000001").isPassed());
+        assertFalse(floats.check("0.1", "0.100002").isPassed());
+    }
+
+    @Test
+    void numbersWithinRelativeEpsilonAreEqual() {
+        assertTrue(floats.check("1000000", "1000000.5").isPassed());
+        assertTrue(floats.check("-2e9", "-2000000001").isPassed());
+        assertFalse(floats.check("1000000", "1000002").isPassed());
+    }
+
+    @Test
+    void epsilonOnlyAppliesToNumbers() {
+        assertFalse(floats.check("abc", "abd").isPassed());
+        assertFalse(floats.check("1", "one").isPassed());
+        assertFalse(floats.check("1", "1x").isPassed());
+        assertTrue(floats.check("NaN", "NaN").isPassed());
+        assertFalse(floats.check("0.5", "-NaN").isPassed());
+    }
+
+    @Test
+    void onlyPlainNumbersGetEpsilon() {
+        assertTrue(floats.check(".5", "0.5000001").isPassed());
+        assertTrue(floats.check("3.", "+3").isPassed());
+        assertTrue(floats.check("1E3", "1000.0000001").isPassed());
+        assertFalse(floats.check("1", "1f").isPassed());
+        assertFalse(floats.check("2", "2d").isPassed());
+        assertFalse(floats.check("8", "0x1p3").isPassed());
+        assertFalse(floats.check("Infinity", "1e400").isPassed());
+        assertFalse(floats.check("1e400", "Infinity").isPassed());
+        assertFalse(floats.check("NaN", "nan").isPassed());
+    }
+
+    @Test
+    void mismatchNamesTokenAndLine() {
+        CheckResult result = tokens.check("1 2\n3 4\n", "1 2\n3 5\n");
+
+        assertFalse(result.isPassed());
+        assertEquals("Token 4 (line 2): expected '4', got '5'", result.getMessage());
+    }
+
+    @Test
+    void missingAndExtraTokensAreReported() {
+        assertEquals("Token 2 (line 1): expected '2', got end of output", tokens.check("1 2", "1\n").getMessage());
+        assertEquals("Token 2 (line 2): expected end of output, got '2'", tokens.check("1", "1\n2").getMessage());
+    }
+
+    @Test
+    void nameIncludesEpsilon() {
+        assertEquals("tokens", tokens.name());
+        assertEquals("float(1.0E-6)", floats.name());
+    }
+}
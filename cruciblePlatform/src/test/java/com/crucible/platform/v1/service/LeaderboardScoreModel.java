@@ -0,0 +1,75 @@
+package com.crucible.platform.v1.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model of {@code redis/leaderboard_record.lua} for one participant, written in Java so the
+ * scoring rules can be tested without Redis. It mirrors the script's arithmetic and has to be
+ * changed with it; it is not the code that runs.
+ */
+final class LeaderboardScoreModel {
+
+    static final int MAX_POINTS = (1 << 20) - 1;
+
+    /**
+     * An accepted submission as the record script gets it: question, points, seconds since the
+     * contest start
+     */
+    record Solve(int questionId, int points, long elapsedSeconds) {
+    }
+
+    // The participant's entry of the solves hash: question to earliest solve time
+    private final Map<Integer, Long> solves = new HashMap<>();
+    // The sorted set stores the score as a double
+    private double score;
+
+    LeaderboardScoreModel() {
+        this(0);
+    }
+
+    LeaderboardScoreModel(double score) {
+        this.score = score;
+    }
+
+    static long pack(int points, int solved, long elapsedSeconds) {
+        return points * LeaderboardScore.POINTS + solved * LeaderboardScore.SOLVED
+            + (LeaderboardScore.MAX_ELAPSED_SECONDS - elapsedSeconds);
+    }
+
+    /**
+     * Seconds from the contest start to the latest first solve; meaningless without solves
+     */
+    static long elapsedSeconds(double score) {
+        return LeaderboardScore.MAX_ELAPSED_SECONDS - (long) score % LeaderboardScore.SOLVED;
+    }
+
+    double score() {
+        return score;
+    }
+
+    /**
+     * Record the solves as the script does: a new question adds its points, an earlier solve of
+     * a known one only moves its time back, and the latest first solve is recomputed from all
+     * of them
+     */
+    LeaderboardScoreModel record(List<Solve> accepted) {
+        for (Solve solve : accepted) {
+            Long known = solves.get(solve.questionId());
+            if (known != null && known <= solve.elapsedSeconds()) {
+                continue;
+            }
+            solves.put(solve.questionId(), solve.elapsedSeconds());
+            int points = LeaderboardScore.points(score);
+            int solved = LeaderboardScore.solved(score);
+            if (known == null) {
+                points = Math.min(points + solve.points(), MAX_POINTS);
+                solved = Math.min(solved + 1, LeaderboardScore.MAX_SOLVED);
+            }
+            score = pack(points, solved, Collections.max(solves.values()));
+        }
+        return this;
+    }
+}
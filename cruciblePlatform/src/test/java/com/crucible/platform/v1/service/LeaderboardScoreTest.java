@@ -0,0 +1,119 @@
+package com.crucible.platform.v1.service;
+
+import com.crucible.platform.v1.service.LeaderboardScoreModel.Solve;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardScoreTest {
+
+    @Test
+    void unpacksWhatWasPacked() {
+        long score = LeaderboardScoreModel.pack(1250, 7, 5400);
+
+        assertEquals(1250, LeaderboardScore.points(score));
+        assertEquals(7, LeaderboardScore.solved(score));
+        assertEquals(5400, LeaderboardScoreModel.elapsedSeconds(score));
+    }
+
+    @Test
+    void largestScoreIsAnExactDouble() {
+        long score = LeaderboardScoreModel.pack(LeaderboardScoreModel.MAX_POINTS, LeaderboardScore.MAX_SOLVED, 0);
+
+        assertTrue(score < 1L << 53);
+        assertEquals(score, (long) (double) score);
+        assertEquals(score - 1, (long) (double) (score - 1));
+        assertEquals(LeaderboardScoreModel.MAX_POINTS, LeaderboardScore.points((double) score));
+        assertEquals(LeaderboardScore.MAX_SOLVED, LeaderboardScore.solved((double) score));
+    }
+
+    @Test
+    void ranksByPointsThenSolvesThenEarlierLastSolve() {
+        long morePoints = LeaderboardScoreModel.pack(101, 1, LeaderboardScore.MAX_ELAPSED_SECONDS);
+        long moreSolves = LeaderboardScoreModel.pack(100, LeaderboardScore.MAX_SOLVED, 0);
+        long earlier = LeaderboardScoreModel.pack(100, 2, 60);
+        long later = LeaderboardScoreModel.pack(100, 2, 61);
+
+        assertTrue(morePoints > moreSolves);
+        assertTrue(moreSolves > earlier);
+        assertTrue(earlier > later);
+        assertTrue(later > 0);
+    }
+
+    @Test
+    void solveAddsPointsAndKeepsLatestTime() {
+        double score = new LeaderboardScoreModel()
+            .record(List.of(new Solve(1, 100, 300), new Solve(2, 200, 120)))
+            .score();
+
+        assertEquals(300, LeaderboardScore.points(score));
+        assertEquals(2, LeaderboardScore.solved(score));
+        assertEquals(300, LeaderboardScoreModel.elapsedSeconds(score));
+    }
+
+    @Test
+    void earlierSolveRecordedLateMovesTheTimeBack() {
+        double score = new LeaderboardScoreModel()
+            .record(List.of(new Solve(1, 100, 300), new Solve(2, 200, 900)))
+            // The verdict of an earlier accepted submission of question 2 comes in last
+            .record(List.of(new Solve(2, 200, 600), new Solve(2, 200, 700)))
+            .score();
+
+        assertEquals(300, LeaderboardScore.points(score));
+        assertEquals(2, LeaderboardScore.solved(score));
+        assertEquals(600, LeaderboardScoreModel.elapsedSeconds(score));
+        assertEquals(score, new LeaderboardScoreModel()
+            .record(List.of(new Solve(1, 100, 300), new Solve(2, 200, 600)))
+            .score());
+    }
+
+    @Test
+    void pointsAndSolvesSaturate() {
+        double score = new LeaderboardScoreModel(
+                LeaderboardScoreModel.pack(LeaderboardScoreModel.MAX_POINTS - 1, LeaderboardScore.MAX_SOLVED, 0))
+            .record(List.of(new Solve(1, 500, 20)))
+            .score();
+
+        assertEquals(LeaderboardScoreModel.MAX_POINTS, LeaderboardScore.points(score));
+        assertEquals(LeaderboardScore.MAX_SOLVED, LeaderboardScore.solved(score));
+        assertEquals(20, LeaderboardScoreModel.elapsedSeconds(score));
+    }
+
+    @Test
+    void replayInAnyOrderWithRepeatsGivesTheSameScore() {
+        List<Solve> solves = List.of(
+            new Solve(1, 100, 600), new Solve(2, 250, 1800), new Solve(3, 0, 45), new Solve(4, 500, 7200));
+        double expected = new LeaderboardScoreModel().record(solves).score();
+
+        Random random = new Random(21);
+        for (int round = 0; round < 50; round++) {
+            List<Solve> shuffled = new ArrayList<>(solves);
+            // A solve recorded live and again by a rebuild, or by two rebuilds
+            shuffled.addAll(solves.subList(0, 1 + random.nextInt(solves.size())));
+            // Later accepted submissions of the same questions
+            for (Solve solve : solves) {
+                shuffled.add(new Solve(solve.questionId(), solve.points(), solve.elapsedSeconds() + 1 + random.nextInt(600)));
+            }
+            Collections.shuffle(shuffled, random);
+            assertEquals(expected, new LeaderboardScoreModel().record(shuffled).score());
+        }
+        assertEquals(850, LeaderboardScore.points(expected));
+        assertEquals(4, LeaderboardScore.solved(expected));
+        assertEquals(7200, LeaderboardScoreModel.elapsedSeconds(expected));
+    }
+
+    @Test
+    void replayOverExistingStandingsChangesNothing() {
+        List<Solve> solves = List.of(new Solve(1, 100, 600), new Solve(2, 250, 1800));
+        LeaderboardScoreModel model = new LeaderboardScoreModel().record(solves);
+        double score = model.score();
+
+        assertEquals(score, model.record(solves).score());
+    }
+}
@@ -0,0 +1,177 @@
+package com.crucible.platform.v1.service;
+
+import com.crucible.platform.v1.dto.contest.ContestLeaderboardResponse;
+import com.crucible.platform.v1.dto.contest.LeaderboardEntryDto;
+import com.crucible.platform.v1.dto.contest.LeaderboardEvent;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardSseServiceTest {
+
+    private static final long CONTEST = 7L;
+
+    // In-memory fan-out never touches Redis
+    private final LeaderboardSseService service = new LeaderboardSseService(null, null, "in-memory", 3);
+
+    @Test
+    void firstUpdateIsASnapshot() {
+        List<LeaderboardEvent> events = subscribe();
+
+        publish(entry(1, "ann", 100, 1), entry(2, "bob", 50, 2));
+
+        assertEquals(1, events.size());
+        LeaderboardEvent snapshot = events.get(0);
+        assertEquals(LeaderboardEvent.SNAPSHOT, snapshot.getType());
+        assertEquals(1L, snapshot.getSeq());
+        assertEquals(CONTEST, snapshot.getContestId());
+        assertEquals("Round 1", snapshot.getContestName());
+        assertEquals(2, snapshot.getLeaderboard().size());
+    }
+
+    @Test
+    void scoreChangesAreSentAsEntriesAndRankOnlyChangesAsRanks() {
+        List<LeaderboardEvent> events = subscribe();
+        publish(entry(1, "ann", 100, 1), entry(2, "bob", 50, 2), entry(3, "cat", 20, 3));
+
+        // bob overtakes ann; ann only moves down a rank, cat is unchanged
+        publish(entry(2, "bob", 150, 1), entry(1, "ann", 100, 2), entry(3, "cat", 20, 3));
+
+        LeaderboardEvent delta = events.get(1);
+        assertEquals(LeaderboardEvent.DELTA, delta.getType());
+        assertEquals(2L, delta.getSeq());
+        assertEquals(CONTEST, delta.getContestId());
+        assertEquals(List.of(2L), delta.getEntries().stream().map(LeaderboardEntryDto::getUserId).toList());
+        assertEquals(Map.of(1L, 2), delta.getRanks());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertNull(delta.getLeaderboard());
+    }
+
+    @Test
+    void newEntrantsAndRemovedUsersAreSent() {
+        List<LeaderboardEvent> events = subscribe();
+        publish(entry(1, "ann", 100, 1), entry(2, "bob", 50, 2));
+
+        publish(entry(1, "ann", 100, 1), entry(3, "cat", 10, 2));
+
+        LeaderboardEvent delta = events.get(1);
+        assertEquals(LeaderboardEvent.DELTA, delta.getType());
+        assertEquals(List.of(3L), delta.getEntries().stream().map(LeaderboardEntryDto::getUserId).toList());
+        assertTrue(delta.getRanks().isEmpty());
+        assertEquals(List.of(2L), delta.getRemoved());
+    }
+
+    @Test
+    void unchangedUpdatesAreDropped() {
+        List<LeaderboardEvent> events = subscribe();
+        publish(entry(1, "ann", 100, 1));
+
+        publish(entry(1, "ann", 100, 1));
+        publish(entry(1, "ann", 120, 1));
+
+        assertEquals(2, events.size());
+        // The dropped update used no sequence number, so the delta follows the snapshot
+        assertEquals(LeaderboardEvent.DELTA, events.get(1).getType());
+        assertEquals(2L, events.get(1).getSeq());
+    }
+
+    @Test
+    void everyoneGetsASnapshotAfterSnapshotEveryDeltas() {
+        List<LeaderboardEvent> events = subscribe();
+
+        for (int score = 1; score <= 9; score++) {
+            publish(entry(1, "ann", score, 1));
+        }
+
+        assertEquals(List.of(LeaderboardEvent.SNAPSHOT, LeaderboardEvent.DELTA, LeaderboardEvent.DELTA,
+                LeaderboardEvent.DELTA, LeaderboardEvent.SNAPSHOT, LeaderboardEvent.DELTA, LeaderboardEvent.DELTA,
+                LeaderboardEvent.DELTA, LeaderboardEvent.SNAPSHOT),
+            events.stream().map(LeaderboardEvent::getType).toList());
+        assertEquals(9L, events.get(8).getSeq());
+        assertEquals(9, events.get(8).getLeaderboard().get(0).getTotalScore());
+    }
+
+    @Test
+    void subscriberThatMissedUpdatesGetsASnapshotFirst() {
+        List<LeaderboardEvent> early = subscribe();
+        publish(entry(1, "ann", 100, 1));
+        publish(entry(1, "ann", 110, 1));
+
+        List<LeaderboardEvent> late = subscribe();
+        publish(entry(1, "ann", 120, 1));
+
+        // Joined at seq 2 without having seen seq 1
+        assertEquals(List.of(LeaderboardEvent.SNAPSHOT, LeaderboardEvent.DELTA),
+            late.stream().map(LeaderboardEvent::getType).toList());
+        assertEquals(2L, late.get(0).getSeq());
+        assertEquals(110, late.get(0).getLeaderboard().get(0).getTotalScore());
+        assertEquals(3L, late.get(1).getSeq());
+        assertEquals(LeaderboardEvent.DELTA, early.get(2).getType());
+    }
+
+    @Test
+    void renamedContestGetsASnapshot() {
+        List<LeaderboardEvent> events = subscribe();
+        publish(entry(1, "ann", 100, 1));
+
+        service.publish(CONTEST, new ContestLeaderboardResponse(CONTEST, "Final", List.of(entry(1, "ann", 100, 1))))
+            .block();
+
+        assertEquals(LeaderboardEvent.SNAPSHOT, events.get(1).getType());
+        assertEquals("Final", events.get(1).getContestName());
+    }
+
+    @Test
+    void channelIsDroppedWithItsLastSubscriber() {
+        List<LeaderboardEvent> first = new ArrayList<>();
+        Disposable firstSubscription = service.subscribe(CONTEST).subscribe(first::add);
+        List<LeaderboardEvent> second = new ArrayList<>();
+        Disposable secondSubscription = service.subscribe(CONTEST).subscribe(second::add);
+        publish(entry(1, "ann", 100, 1));
+
+        firstSubscription.dispose();
+        publish(entry(1, "ann", 110, 1));
+        assertEquals(2, second.size());
+
+        secondSubscription.dispose();
+        // Nobody watches: the update is not kept for later subscribers
+        publish(entry(1, "ann", 120, 1));
+        List<LeaderboardEvent> next = subscribe();
+        assertTrue(next.isEmpty());
+
+        publish(entry(1, "ann", 130, 1));
+        assertEquals(1, next.size());
+        assertEquals(LeaderboardEvent.SNAPSHOT, next.get(0).getType());
+        assertEquals(1L, next.get(0).getSeq());
+    }
+
+    @Test
+    void updatesWithoutSubscribersAreIgnored() {
+        publish(entry(1, "ann", 100, 1));
+
+        List<LeaderboardEvent> events = subscribe();
+
+        assertTrue(events.isEmpty());
+    }
+
+    private List<LeaderboardEvent> subscribe() {
+        List<LeaderboardEvent> events = new ArrayList<>();
+        service.subscribe(CONTEST).subscribe(events::add);
+        return events;
+    }
+
+    private void publish(LeaderboardEntryDto... entries) {
+        service.publish(CONTEST, new ContestLeaderboardResponse(CONTEST, "Round 1", List.of(entries))).block();
+    }
+
+    private static LeaderboardEntryDto entry(long userId, String username, int score, int rank) {
+        return new LeaderboardEntryDto(userId, username, score, 1, rank);
+    }
+}